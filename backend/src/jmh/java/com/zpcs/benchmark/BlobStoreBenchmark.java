@@ -0,0 +1,103 @@
+package com.zpcs.benchmark;
+
+import com.zpcs.buffer.BufferPool;
+import com.zpcs.config.BufferPoolProperties;
+import com.zpcs.config.SegmentStoreProperties;
+import com.zpcs.config.StorageProperties;
+import com.zpcs.storage.LocalFileStorageService;
+import com.zpcs.storage.SegmentStorageService;
+import com.zpcs.storage.StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Durable write and read throughput of the packed segment store against one
+ * file per image, flat and sharded, with concurrent writers and readers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class BlobStoreBenchmark {
+
+    public enum Store {
+        FLAT_FILES, SHARDED_FILES, SEGMENTS
+    }
+
+    @Param({ "FLAT_FILES", "SHARDED_FILES", "SEGMENTS" })
+    public Store store;
+
+    @Param({ "65536", "1048576" })
+    public int imageBytes;
+
+    @Param({ "10000" })
+    public int preloadedImages;
+
+    private Path root;
+    private StorageService storage;
+    private byte[] image;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("zpcs-blob-bench");
+        image = new byte[imageBytes];
+        new Random(42).nextBytes(image);
+        storage = switch (store) {
+            case FLAT_FILES, SHARDED_FILES -> {
+                StorageProperties properties = new StorageProperties();
+                properties.setBasePath(root.toString());
+                properties.setLayout(store == Store.FLAT_FILES
+                        ? StorageProperties.Layout.FLAT : StorageProperties.Layout.SHARDED);
+                LocalFileStorageService files = new LocalFileStorageService(properties);
+                files.init();
+                yield files;
+            }
+            case SEGMENTS -> {
+                SegmentStoreProperties properties = new SegmentStoreProperties();
+                properties.setDirectory(root.toString());
+                yield new SegmentStorageService(properties,
+                        new BufferPool(new BufferPoolProperties(), new SimpleMeterRegistry()),
+                        new SimpleMeterRegistry());
+            }
+        };
+        for (int i = 0; i < preloadedImages; i++) {
+            storage.save(image, "preloaded-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (storage instanceof SegmentStorageService segments) {
+            segments.close();
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String write() {
+        return storage.save(image, "written-" + sequence.incrementAndGet());
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        String id = "preloaded-" + ThreadLocalRandom.current().nextInt(preloadedImages);
+        try (InputStream in = storage.load(id).getInputStream()) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
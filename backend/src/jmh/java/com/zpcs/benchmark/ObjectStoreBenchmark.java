@@ -0,0 +1,145 @@
+package com.zpcs.benchmark;
+
+import com.zpcs.buffer.BufferPool;
+import com.zpcs.config.BufferPoolProperties;
+import com.zpcs.config.S3StorageProperties;
+import com.zpcs.config.StorageProperties;
+import com.zpcs.storage.LocalFileStorageService;
+import com.zpcs.storage.RangedResource;
+import com.zpcs.storage.S3StorageService;
+import com.zpcs.storage.StorageService;
+import com.zpcs.storage.StoredImage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Write, streamed write, read and ranged read throughput of the S3 backend
+ * against local disk. The S3 runs need an S3-compatible endpoint, by default
+ * the MinIO service from docker-compose ({@code docker compose --profile s3 up minio});
+ * point elsewhere with {@code -Dzpcs.s3.endpoint}, {@code -Dzpcs.s3.accessKey}
+ * and {@code -Dzpcs.s3.secretKey}. Images above 8 MiB go up as multipart uploads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class ObjectStoreBenchmark {
+
+    public enum Store {
+        LOCAL_DISK, S3
+    }
+
+    @Param({ "LOCAL_DISK", "S3" })
+    public Store store;
+
+    @Param({ "1048576", "33554432" })
+    public int imageBytes;
+
+    @Param({ "64" })
+    public int preloadedImages;
+
+    private Path root;
+    private StorageService storage;
+    private byte[] image;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        image = new byte[imageBytes];
+        new Random(42).nextBytes(image);
+        storage = switch (store) {
+            case LOCAL_DISK -> {
+                root = Files.createTempDirectory("zpcs-object-bench");
+                StorageProperties properties = new StorageProperties();
+                properties.setBasePath(root.toString());
+                LocalFileStorageService files = new LocalFileStorageService(properties);
+                files.init();
+                yield files;
+            }
+            case S3 -> {
+                S3StorageProperties properties = new S3StorageProperties();
+                properties.setEndpoint(System.getProperty("zpcs.s3.endpoint", "http://localhost:9000"));
+                properties.setAccessKey(System.getProperty("zpcs.s3.accessKey", "minioadmin"));
+                properties.setSecretKey(System.getProperty("zpcs.s3.secretKey", "minioadmin"));
+                properties.setBucket("zpcs-bench");
+                properties.setKeyPrefix("run-" + System.currentTimeMillis() + "/");
+                yield new S3StorageService(properties,
+                        new BufferPool(new BufferPoolProperties(), new SimpleMeterRegistry()),
+                        new SimpleMeterRegistry());
+            }
+        };
+        for (int i = 0; i < preloadedImages; i++) {
+            storage.save(image, "preloaded-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (storage instanceof S3StorageService objects) {
+            try (Stream<StoredImage> images = objects.list()) {
+                images.forEach(stored -> objects.delete(stored.id()));
+            }
+            objects.close();
+            return;
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String write() {
+        return storage.save(image, "written-" + sequence.incrementAndGet());
+    }
+
+    /** Saving through a channel in 64 KiB writes, as the derivative renderer does. */
+    @Benchmark
+    public String streamedWrite() {
+        return storage.save("streamed-" + sequence.incrementAndGet(), channel -> {
+            for (int offset = 0; offset < image.length; offset += 65536) {
+                channel.write(ByteBuffer.wrap(image, offset, Math.min(65536, image.length - offset)));
+            }
+        });
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        try (InputStream in = storage.load(randomPreloaded()).getInputStream()) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    /** The last 64 KiB, as a resumed download or a seeking viewer asks for. */
+    @Benchmark
+    public long rangedRead() throws IOException {
+        var resource = storage.load(randomPreloaded());
+        long end = resource.contentLength() - 1;
+        long start = Math.max(0, end - 65535);
+        if (resource instanceof RangedResource ranged) {
+            try (InputStream in = ranged.getInputStream(start, end)) {
+                return in.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        try (InputStream in = resource.getInputStream()) {
+            in.skipNBytes(start);
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private String randomPreloaded() {
+        return "preloaded-" + ThreadLocalRandom.current().nextInt(preloadedImages);
+    }
+}
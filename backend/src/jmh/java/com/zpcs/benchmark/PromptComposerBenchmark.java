@@ -0,0 +1,59 @@
+package com.zpcs.benchmark;
+
+import com.zpcs.dto.request.GenerateImageRequest;
+import com.zpcs.model.enums.*;
+import com.zpcs.prompt.ChainedPromptComposer;
+import com.zpcs.prompt.CompiledPromptComposer;
+import com.zpcs.prompt.PromptFragmentHandler;
+import com.zpcs.prompt.handlers.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request prompt composition: handler chain versus precompiled tables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PromptComposerBenchmark {
+
+    private ChainedPromptComposer chained;
+    private CompiledPromptComposer compiled;
+    private GenerateImageRequest request;
+
+    @Setup
+    public void setUp() {
+        List<PromptFragmentHandler> handlers = new ArrayList<>(List.of(
+                new SubjectHandler(), new AestheticStyleHandler(), new LightingHandler(), new CameraHandler(),
+                new ColorPaletteHandler(), new LensEffectHandler(), new ResolutionHandler()));
+        handlers.sort(Comparator.comparingInt(PromptFragmentHandler::getOrder));
+        chained = new ChainedPromptComposer(handlers);
+        compiled = new CompiledPromptComposer(handlers);
+        request = GenerateImageRequest.builder()
+                .subject("a lighthouse on a basalt cliff during a storm")
+                .operationMode(OperationMode.TEXT_TO_IMAGE)
+                .aestheticStyle(AestheticStyle.values()[0])
+                .lighting(LightingSetup.NEON_VOLUMETRIC)
+                .cameraComposition(CameraComposition.values()[0])
+                .colorPalette(ColorPalette.values()[0])
+                .lensEffect(LensEffect.values()[0])
+                .aspectRatio(AspectRatio.RATIO_1_1)
+                .resolution(ResolutionQuality.PRODUCTION)
+                .thinkingLevel(ThinkingLevel.CREATIVE)
+                .build();
+    }
+
+    @Benchmark
+    public String chained() {
+        return chained.compose(request);
+    }
+
+    @Benchmark
+    public String compiled() {
+        return compiled.compose(request);
+    }
+}
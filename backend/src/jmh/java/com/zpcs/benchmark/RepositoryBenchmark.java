@@ -0,0 +1,63 @@
+package com.zpcs.benchmark;
+
+import com.zpcs.model.GalleryCursor;
+import com.zpcs.model.ImageRecord;
+import com.zpcs.model.enums.OperationMode;
+import com.zpcs.storage.InMemoryImageRecordRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gallery listing cost as the record count grows: first page and a deep
+ * page, by offset and by cursor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int records;
+
+    private InMemoryImageRecordRepository repository;
+    private GalleryCursor middle;
+
+    @Setup
+    public void setUp() {
+        repository = new InMemoryImageRecordRepository();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < records; i++) {
+            repository.save(ImageRecord.builder()
+                    .id("img_" + i)
+                    .filePath("/images/img_" + i + ".png")
+                    .prompt("prompt " + i)
+                    .operationMode(OperationMode.TEXT_TO_IMAGE)
+                    .generationTimeMs(1000)
+                    .createdAt(base.plusSeconds(i))
+                    .build());
+        }
+        middle = new GalleryCursor(base.plusSeconds(records / 2), "img_" + records / 2);
+    }
+
+    @Benchmark
+    public Page<ImageRecord> firstPage() {
+        return repository.findAll(PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<ImageRecord> deepPage() {
+        return repository.findAll(PageRequest.of(records / PAGE_SIZE / 2, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<ImageRecord> cursorDeepPage() {
+        return repository.findAfter(middle, PAGE_SIZE);
+    }
+}
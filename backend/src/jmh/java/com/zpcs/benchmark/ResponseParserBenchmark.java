@@ -0,0 +1,69 @@
+package com.zpcs.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zpcs.buffer.BufferPool;
+import com.zpcs.buffer.PooledBufferChannel;
+import com.zpcs.client.GeminiResponseParser;
+import com.zpcs.config.BufferPoolProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracting the inline image from a raw response: Map tree plus
+ * whole-string Base64 decode versus the streaming parser writing into a
+ * pooled buffer. Payload sizes span DRAFT to PRODUCTION images.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseParserBenchmark {
+
+    private static final TypeReference<Map<String, Object>> JSON_MAP = new TypeReference<>() {
+    };
+
+    @Param({ "262144", "2097152", "8388608" })
+    public int imageBytes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BufferPool bufferPool;
+    private byte[] response;
+
+    @Setup
+    public void setUp() {
+        byte[] image = new byte[imageBytes];
+        new Random(42).nextBytes(image);
+        String json = "{\"candidates\":[{\"content\":{\"role\":\"model\",\"parts\":["
+                + "{\"text\":\"Here is your image.\"},"
+                + "{\"inlineData\":{\"mimeType\":\"image/png\",\"data\":\""
+                + Base64.getEncoder().encodeToString(image)
+                + "\"}}]},\"finishReason\":\"STOP\",\"index\":0}],"
+                + "\"usageMetadata\":{\"promptTokenCount\":42,\"totalTokenCount\":1332}}";
+        response = json.getBytes(StandardCharsets.UTF_8);
+        bufferPool = new BufferPool(new BufferPoolProperties(), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public byte[] mapTree() throws IOException {
+        Map<String, Object> body = objectMapper.readValue(response, JSON_MAP);
+        return GeminiResponseParser.extractImageBytes(body);
+    }
+
+    @Benchmark
+    public int streaming() throws IOException {
+        PooledBufferChannel channel = bufferPool.newChannel(1024 * 1024);
+        GeminiResponseParser.streamImageData(new ByteArrayInputStream(response), channel);
+        var image = channel.finish();
+        int size = image.size();
+        image.release();
+        return size;
+    }
+}
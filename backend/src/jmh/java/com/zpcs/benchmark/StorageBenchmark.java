@@ -0,0 +1,112 @@
+package com.zpcs.benchmark;
+
+import com.zpcs.config.StorageProperties;
+import com.zpcs.storage.LocalFileStorageService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Local file storage: saving from a heap array, saving from a direct
+ * buffer, loading an image back through its Resource and checking existence
+ * of stored and never-stored ids, in each layout and with a directory
+ * already holding many images.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StorageBenchmark {
+
+    @Param({ "262144", "4194304" })
+    public int imageBytes;
+
+    @Param({ "FLAT", "SHARDED" })
+    public StorageProperties.Layout layout;
+
+    @Param({ "0", "200000" })
+    public int existingImages;
+
+    private Path root;
+    private LocalFileStorageService storage;
+    private byte[] heapImage;
+    private ByteBuffer directImage;
+    private String[] existingIds;
+    private String[] missingIds;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("zpcs-storage-bench");
+        StorageProperties properties = new StorageProperties();
+        properties.setBasePath(root.toString());
+        properties.setLayout(layout);
+
+        // Fill the directory without paying for a sync per file
+        properties.setFsync(false);
+        LocalFileStorageService filler = new LocalFileStorageService(properties);
+        filler.init();
+        // Every stored id, the load target included; misses never match one
+        existingIds = new String[existingImages + 1];
+        existingIds[existingImages] = "load-target";
+        missingIds = new String[1024];
+        for (int i = 0; i < missingIds.length; i++) {
+            missingIds[i] = "missing-" + i;
+        }
+        byte[] tiny = new byte[1];
+        for (int i = 0; i < existingImages; i++) {
+            existingIds[i] = "existing-" + i;
+            filler.save(tiny, existingIds[i]);
+        }
+
+        properties.setFsync(true);
+        storage = new LocalFileStorageService(properties);
+        storage.init();
+
+        heapImage = new byte[imageBytes];
+        new Random(42).nextBytes(heapImage);
+        directImage = ByteBuffer.allocateDirect(imageBytes).put(heapImage).flip();
+        storage.save(heapImage, "load-target");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String saveHeapArray() {
+        return storage.save(heapImage, "save-heap");
+    }
+
+    @Benchmark
+    public String saveDirectBuffer() {
+        return storage.save(directImage, "save-direct");
+    }
+
+    @Benchmark
+    public byte[] load() throws IOException {
+        try (InputStream in = storage.load("load-target").getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public boolean existsHit() {
+        return storage.exists(existingIds[ThreadLocalRandom.current().nextInt(existingIds.length)]);
+    }
+
+    @Benchmark
+    public boolean existsMiss() {
+        return storage.exists(missingIds[ThreadLocalRandom.current().nextInt(missingIds.length)]);
+    }
+}
@@ -0,0 +1,75 @@
+package com.zpcs.benchmark;
+
+import com.zpcs.buffer.PooledBuffer;
+import com.zpcs.client.AiModelClient;
+import com.zpcs.client.ReactiveAiModelClient;
+import com.zpcs.dto.request.GenerateImageRequest;
+import com.zpcs.model.AiModelResponse;
+import com.zpcs.model.GeminiRequestConfig;
+import com.zpcs.model.GenerationContext;
+import com.zpcs.model.GenerationResult;
+import com.zpcs.model.enums.OperationMode;
+import com.zpcs.model.enums.ThinkingLevel;
+import com.zpcs.strategy.EditImageStrategy;
+import com.zpcs.strategy.GenerationStrategy;
+import com.zpcs.strategy.GenerationStrategyFactory;
+import com.zpcs.strategy.StyleTransferStrategy;
+import com.zpcs.strategy.TextToImageStrategy;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Strategy resolution and dispatch against a stub model client, so only
+ * our own overhead is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StrategyBenchmark {
+
+    @Param({ "TEXT_TO_IMAGE", "STYLE_TRANSFER" })
+    public OperationMode mode;
+
+    private GenerationStrategyFactory factory;
+    private GenerationContext context;
+
+    @Setup
+    public void setUp() {
+        byte[] image = new byte[64 * 1024];
+        AiModelClient stub = request -> AiModelResponse.builder()
+                .imageData(PooledBuffer.wrap(image))
+                .mimeType("image/png")
+                .build();
+        ReactiveAiModelClient reactiveStub = request -> Mono.just(stub.generateImage(request));
+        factory = new GenerationStrategyFactory(List.of(
+                new TextToImageStrategy(stub, reactiveStub),
+                new EditImageStrategy(stub, reactiveStub),
+                new StyleTransferStrategy(stub, reactiveStub)));
+        context = GenerationContext.builder()
+                .id("img_benchmark")
+                .prompt("a lighthouse on a basalt cliff during a storm, illuminated with neon volumetric lighting")
+                .originalRequest(GenerateImageRequest.builder().operationMode(mode).build())
+                .aiConfig(GeminiRequestConfig.builder()
+                        .model("stub-model")
+                        .thinkingLevel(ThinkingLevel.CREATIVE)
+                        .aspectRatio("1:1")
+                        .imageWidth(1024)
+                        .imageHeight(1024)
+                        .build())
+                .sourceImageBytes(new byte[1024])
+                .build();
+    }
+
+    @Benchmark
+    public GenerationStrategy resolve() {
+        return factory.getStrategy(mode);
+    }
+
+    @Benchmark
+    public GenerationResult resolveAndExecute() {
+        return factory.getStrategy(mode).execute(context);
+    }
+}
@@ -0,0 +1,183 @@
+package com.zpcs.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Open-loop load driver for POST /api/v1/images/generate.
+ * Requests start on a fixed schedule at the target rate whether or not
+ * earlier ones have finished, and latency is measured from the scheduled
+ * start, so a slow server cannot hide its queueing (no coordinated omission).
+ * Meant to run against the app started with the {@code stub} profile.
+ *
+ * <pre>
+ * ./gradlew loadTest -PloadArgs="--rps 20 --duration 120 --warmup 15 --resolution PRODUCTION"
+ * </pre>
+ * Options: --url, --rps, --duration (s), --warmup (s), --resolution,
+ * --mode, --timeout (s), --repeat-subjects (exercise coalescing and caching).
+ */
+public final class LoadDriver {
+
+    private final Map<String, String> options;
+    private final HttpClient client;
+    private final ReentrantLock samplesLock = new ReentrantLock();
+    private long[] samples = new long[1024];
+    private int sampleCount;
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong maxInFlight = new AtomicLong();
+
+    private LoadDriver(Map<String, String> options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        new LoadDriver(parse(args)).run();
+    }
+
+    private void run() throws InterruptedException {
+        URI target = URI.create(option("url", "http://localhost:8080") + "/api/v1/images/generate");
+        double rps = Double.parseDouble(option("rps", "5"));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(option("duration", "60")));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(option("warmup", "10")));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(option("timeout", "180")));
+        boolean repeatSubjects = Boolean.parseBoolean(option("repeat-subjects", "false"));
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rps);
+
+        System.out.printf("Driving %s at %.1f req/s for %ds (+%ds warm-up)%n", target, rps,
+                TimeUnit.NANOSECONDS.toSeconds(durationNanos), TimeUnit.NANOSECONDS.toSeconds(warmupNanos));
+
+        ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+        long start = System.nanoTime();
+        long end = start + warmupNanos + durationNanos;
+        long sequence = 0;
+        for (long scheduled = start; scheduled < end; scheduled = start + (++sequence) * intervalNanos) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = scheduled - start >= warmupNanos;
+            HttpRequest request = HttpRequest.newBuilder(target)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body(repeatSubjects ? sequence % 10 : sequence)))
+                    .build();
+            long scheduledAt = scheduled;
+            requests.submit(() -> send(request, scheduledAt, measured));
+        }
+        requests.shutdown();
+        requests.awaitTermination(timeout.toSeconds() + 10, TimeUnit.SECONDS);
+        report(TimeUnit.NANOSECONDS.toMillis(durationNanos) / 1000.0);
+    }
+
+    private void send(HttpRequest request, long scheduledAt, boolean measured) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        String outcome;
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            outcome = String.valueOf(response.statusCode());
+        } catch (HttpTimeoutException e) {
+            outcome = "timeout";
+        } catch (IOException e) {
+            outcome = "io-error";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        if (!measured) {
+            return;
+        }
+        outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+        if ("200".equals(outcome)) {
+            record(System.nanoTime() - scheduledAt);
+        }
+    }
+
+    private void record(long latencyNanos) {
+        samplesLock.lock();
+        try {
+            if (sampleCount == samples.length) {
+                samples = Arrays.copyOf(samples, samples.length * 2);
+            }
+            samples[sampleCount++] = latencyNanos;
+        } finally {
+            samplesLock.unlock();
+        }
+    }
+
+    private void report(double seconds) {
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        long total = outcomes.values().stream().mapToLong(LongAdder::sum).sum();
+
+        System.out.println();
+        System.out.printf("Requests      %d (%.1f req/s offered)%n", total, total / seconds);
+        System.out.printf("Succeeded     %d (%.1f req/s)%n", sorted.length, sorted.length / seconds);
+        System.out.printf("Max in flight %d%n", maxInFlight.get());
+        System.out.println("Latency of successful requests (ms, from scheduled start):");
+        for (double p : new double[] { 50, 90, 95, 99, 99.9 }) {
+            System.out.printf("  p%-5s %10.1f%n", p == (long) p ? String.valueOf((long) p) : String.valueOf(p),
+                    percentile(sorted, p));
+        }
+        System.out.printf("  max    %10.1f%n", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+        System.out.println("Outcomes:");
+        new TreeMap<>(outcomes).forEach((outcome, count) -> System.out.printf("  %-12s %8d  %5.1f%%%n",
+                outcome, count.sum(), 100.0 * count.sum() / Math.max(1, total)));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    private String body(long subject) {
+        return """
+                {"subject":"load test subject %d","operationMode":"%s","aspectRatio":"RATIO_1_1",\
+                "resolution":"%s","thinkingLevel":"CREATIVE"}""".formatted(subject,
+                option("mode", "TEXT_TO_IMAGE"), option("resolution", "STANDARD"));
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+            options.put(name, hasValue ? args[++i] : "true");
+        }
+        return options;
+    }
+}
@@ -0,0 +1,263 @@
+package com.zpcs.batch;
+
+import com.zpcs.config.BatchProperties;
+import com.zpcs.dto.request.BatchGenerateRequest;
+import com.zpcs.dto.request.GenerateImageRequest;
+import com.zpcs.dto.response.BatchSummary;
+import com.zpcs.dto.response.BatchVariantResult;
+import com.zpcs.dto.response.GeneratedImageResponse;
+import com.zpcs.exception.InvalidBatchException;
+import com.zpcs.exception.ZpcsException;
+import com.zpcs.orchestrator.ImageGenerationOrchestrator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Expands a batch request into the cartesian product of its option axes and
+ * generates the variants in parallel, streaming each result over SSE as
+ * soon as it completes.
+ * At most {@code maxConcurrency} variants of a batch run at once: each
+ * finished variant launches the next one, so no coordinator thread waits.
+ * Failed variants are reported individually; when the batch deadline passes,
+ * variants that have not finished are reported as failed and the stream closes.
+ */
+@Service
+@Slf4j
+public class BatchGenerationService {
+
+    private final ImageGenerationOrchestrator orchestrator;
+    private final Executor executor;
+    private final BatchProperties properties;
+    private final ScheduledThreadPoolExecutor deadlines;
+
+    public BatchGenerationService(ImageGenerationOrchestrator orchestrator,
+            @Qualifier("generationExecutor") Executor executor,
+            BatchProperties properties) {
+        this.orchestrator = orchestrator;
+        this.executor = executor;
+        this.properties = properties;
+        this.deadlines = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("batch-deadline").daemon(true).factory());
+        // Batches usually finish well before their deadline; don't keep their timers queued
+        deadlines.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deadlines.shutdownNow();
+    }
+
+    public SseEmitter submit(BatchGenerateRequest request) {
+        // Checked on the product of the axes so an oversized batch is never built
+        long count = variantCount(request);
+        if (count > properties.getMaxVariants()) {
+            throw new InvalidBatchException("Batch expands to " + count
+                    + " variants, the limit is " + properties.getMaxVariants());
+        }
+        List<GenerateImageRequest> variants = expand(request);
+
+        long deadlineMs = TimeUnit.SECONDS.toMillis(properties.getDeadlineSeconds());
+        // Outlive the deadline so the summary event is always delivered
+        SseEmitter emitter = new SseEmitter(deadlineMs + 10_000);
+        BatchRun run = new BatchRun("batch_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12),
+                variants, emitter);
+        log.info("Batch {} started: {} variants, concurrency {}", run.id, variants.size(),
+                properties.getMaxConcurrency());
+
+        run.deadline = deadlines.schedule(() -> expire(run), deadlineMs, TimeUnit.MILLISECONDS);
+        int initial = Math.min(properties.getMaxConcurrency(), variants.size());
+        for (int i = 0; i < initial; i++) {
+            launchNext(run);
+        }
+        return emitter;
+    }
+
+    static long variantCount(BatchGenerateRequest request) {
+        return (long) axisSize(request.getAestheticStyles())
+                * axisSize(request.getLightings())
+                * axisSize(request.getColorPalettes());
+    }
+
+    static List<GenerateImageRequest> expand(BatchGenerateRequest request) {
+        GenerateImageRequest base = request.getBase();
+        List<GenerateImageRequest> variants = new ArrayList<>();
+        for (var style : axis(request.getAestheticStyles(), base.getAestheticStyle())) {
+            for (var lighting : axis(request.getLightings(), base.getLighting())) {
+                for (var palette : axis(request.getColorPalettes(), base.getColorPalette())) {
+                    variants.add(base.toBuilder()
+                            .aestheticStyle(style)
+                            .lighting(lighting)
+                            .colorPalette(palette)
+                            .build());
+                }
+            }
+        }
+        return variants;
+    }
+
+    private static <E> List<E> axis(List<E> values, E fallback) {
+        return values == null || values.isEmpty() ? Collections.singletonList(fallback) : values;
+    }
+
+    private static int axisSize(List<?> values) {
+        return values == null || values.isEmpty() ? 1 : values.size();
+    }
+
+    /**
+     * Starts the next variant in this slot. A variant the executor rejects
+     * is reported failed and the slot moves on to the one after it.
+     */
+    private void launchNext(BatchRun run) {
+        while (true) {
+            int index = run.next.getAndIncrement();
+            if (index >= run.variants.size() || run.isClosed()) {
+                return;
+            }
+            try {
+                executor.execute(() -> runVariant(run, index));
+                return;
+            } catch (RejectedExecutionException e) {
+                report(run, failure(run, index, "QUOTA_EXCEEDED", "Generation executor is saturated"));
+            }
+        }
+    }
+
+    private void runVariant(BatchRun run, int index) {
+        if (run.isClosed()) {
+            return;
+        }
+        BatchVariantResult result;
+        try {
+            GeneratedImageResponse response = orchestrator.generate(run.variants.get(index));
+            result = variant(run, index).success(true).result(response).build();
+        } catch (ZpcsException e) {
+            result = failure(run, index, e.getErrorCode(), e.getMessage());
+        } catch (Exception e) {
+            log.error("Batch {} variant {} failed unexpectedly", run.id, index, e);
+            result = failure(run, index, "INTERNAL_ERROR", "An unexpected error occurred");
+        }
+        report(run, result);
+        launchNext(run);
+    }
+
+    private void report(BatchRun run, BatchVariantResult result) {
+        run.lock.lock();
+        try {
+            if (run.closed) {
+                return;
+            }
+            run.reported[result.getIndex()] = true;
+            run.finished++;
+            if (result.isSuccess()) {
+                run.succeeded++;
+            }
+            send(run, "variant", result);
+            if (run.finished == run.variants.size()) {
+                close(run, false);
+            }
+        } finally {
+            run.lock.unlock();
+        }
+    }
+
+    private void expire(BatchRun run) {
+        run.lock.lock();
+        try {
+            if (run.closed) {
+                return;
+            }
+            log.warn("Batch {} hit its deadline with {}/{} variants finished", run.id, run.finished,
+                    run.variants.size());
+            for (int i = 0; i < run.variants.size(); i++) {
+                if (!run.reported[i]) {
+                    send(run, "variant", failure(run, i, "DEADLINE_EXCEEDED", "Batch deadline exceeded"));
+                }
+            }
+            close(run, true);
+        } finally {
+            run.lock.unlock();
+        }
+    }
+
+    private void close(BatchRun run, boolean deadlineExceeded) {
+        run.closed = true;
+        if (run.deadline != null) {
+            run.deadline.cancel(false);
+        }
+        int total = run.variants.size();
+        send(run, "complete", BatchSummary.builder()
+                .batchId(run.id)
+                .total(total)
+                .succeeded(run.succeeded)
+                .failed(total - run.succeeded)
+                .deadlineExceeded(deadlineExceeded)
+                .elapsedMs(System.currentTimeMillis() - run.startedAt)
+                .build());
+        run.emitter.complete();
+        log.info("Batch {} finished: {}/{} succeeded", run.id, run.succeeded, total);
+    }
+
+    private static void send(BatchRun run, String name, Object data) {
+        try {
+            run.emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            // Client disconnected; keep generating so finished images still land in the gallery
+            log.debug("Batch {} stream closed by client: {}", run.id, e.getMessage());
+        }
+    }
+
+    private static BatchVariantResult failure(BatchRun run, int index, String code, String message) {
+        return variant(run, index).success(false).errorCode(code).errorMessage(message).build();
+    }
+
+    private static BatchVariantResult.BatchVariantResultBuilder variant(BatchRun run, int index) {
+        GenerateImageRequest request = run.variants.get(index);
+        return BatchVariantResult.builder()
+                .batchId(run.id)
+                .index(index)
+                .aestheticStyle(request.getAestheticStyle())
+                .lighting(request.getLighting())
+                .colorPalette(request.getColorPalette());
+    }
+
+    private static final class BatchRun {
+        final String id;
+        final List<GenerateImageRequest> variants;
+        final SseEmitter emitter;
+        final long startedAt = System.currentTimeMillis();
+        final AtomicInteger next = new AtomicInteger();
+        final ReentrantLock lock = new ReentrantLock();
+        final boolean[] reported;
+        volatile ScheduledFuture<?> deadline;
+        volatile boolean closed;
+        int finished;
+        int succeeded;
+
+        BatchRun(String id, List<GenerateImageRequest> variants, SseEmitter emitter) {
+            this.id = id;
+            this.variants = variants;
+            this.emitter = emitter;
+            this.reported = new boolean[variants.size()];
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.zpcs.buffer;
+
+import com.zpcs.config.BufferPoolProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct byte buffers in power-of-two size classes.
+ * Idle buffers are capped by total bytes; requests above the largest class
+ * get a one-off direct buffer that is left to the garbage collector.
+ */
+@Component
+public class BufferPool {
+
+    private final int minShift;
+    private final int maxShift;
+    private final long maxIdleBytes;
+    private final Queue<ByteBuffer>[] idle;
+    private final AtomicLong idleBytes = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    @SuppressWarnings("unchecked")
+    public BufferPool(BufferPoolProperties properties, MeterRegistry meterRegistry) {
+        this.minShift = shiftFor(properties.getMinClassBytes());
+        this.maxShift = Math.max(minShift, shiftFor(properties.getMaxClassBytes()));
+        this.maxIdleBytes = properties.getMaxIdleBytes();
+        this.idle = new Queue[maxShift - minShift + 1];
+        for (int i = 0; i < idle.length; i++) {
+            idle[i] = new ConcurrentLinkedQueue<>();
+        }
+
+        this.hits = meterRegistry.counter("zpcs.buffer.pool.acquire", "result", "hit");
+        this.misses = meterRegistry.counter("zpcs.buffer.pool.acquire", "result", "miss");
+        Gauge.builder("zpcs.buffer.pool.idle.bytes", idleBytes, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Writable, cleared buffer of at least {@code minCapacity} bytes.
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        int shift = Math.max(minShift, shiftFor(minCapacity));
+        if (shift > maxShift) {
+            misses.increment();
+            return ByteBuffer.allocateDirect(minCapacity);
+        }
+        ByteBuffer buffer = idle[shift - minShift].poll();
+        if (buffer != null) {
+            idleBytes.addAndGet(-buffer.capacity());
+            hits.increment();
+            return buffer.clear();
+        }
+        misses.increment();
+        return ByteBuffer.allocateDirect(1 << shift);
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #acquire}; anything else is ignored.
+     */
+    public void recycle(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (!buffer.isDirect() || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        int shift = Integer.numberOfTrailingZeros(capacity);
+        if (shift < minShift || shift > maxShift) {
+            return;
+        }
+        if (idleBytes.addAndGet(capacity) > maxIdleBytes) {
+            idleBytes.addAndGet(-capacity);
+            return;
+        }
+        idle[shift - minShift].offer(buffer);
+    }
+
+    /**
+     * Channel that accumulates bytes into pooled buffers, growing by size class.
+     */
+    public PooledBufferChannel newChannel(int expectedSize) {
+        return new PooledBufferChannel(this, expectedSize);
+    }
+
+    PooledBuffer toPooled(ByteBuffer content) {
+        return new PooledBuffer(content, this);
+    }
+
+    private static int shiftFor(long bytes) {
+        return bytes <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(bytes - 1);
+    }
+}
@@ -0,0 +1,87 @@
+package com.zpcs.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reference-counted, read-only view of image bytes, usually backed by a
+ * direct slab from {@link BufferPool}.
+ * Whoever holds a reference releases it exactly once; the slab returns to
+ * the pool when the last reference goes. A buffer that is never released
+ * is simply garbage collected, the pool only loses the chance to reuse it.
+ */
+public final class PooledBuffer {
+
+    private final ByteBuffer buffer;
+    private final BufferPool pool;
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    PooledBuffer(ByteBuffer buffer, BufferPool pool) {
+        this.buffer = buffer;
+        this.pool = pool;
+    }
+
+    /**
+     * Wraps heap bytes without copying; releasing it frees nothing.
+     */
+    public static PooledBuffer wrap(byte[] data) {
+        return new PooledBuffer(ByteBuffer.wrap(data), null);
+    }
+
+    public int size() {
+        return buffer.limit();
+    }
+
+    /** Bytes of memory actually held, which may exceed the content by up to a size class. */
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Independent read-only view positioned at the start of the content.
+     */
+    public ByteBuffer nioBuffer() {
+        ensureLive();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    public byte[] toByteArray() {
+        ensureLive();
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == buffer.limit()) {
+            return buffer.array();
+        }
+        byte[] copy = new byte[buffer.limit()];
+        buffer.asReadOnlyBuffer().get(copy);
+        return copy;
+    }
+
+    public PooledBuffer retain() {
+        if (refCount.getAndUpdate(c -> c > 0 ? c + 1 : c) <= 0) {
+            throw new IllegalStateException("Buffer already released");
+        }
+        return this;
+    }
+
+    /**
+     * Drops one reference.
+     *
+     * @return true if this was the last one
+     */
+    public boolean release() {
+        int remaining = refCount.decrementAndGet();
+        if (remaining < 0) {
+            throw new IllegalStateException("Buffer released more often than retained");
+        }
+        if (remaining == 0 && pool != null) {
+            pool.recycle(buffer);
+            return true;
+        }
+        return remaining == 0;
+    }
+
+    private void ensureLive() {
+        if (refCount.get() <= 0) {
+            throw new IllegalStateException("Buffer already released");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.zpcs.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Write side of a {@link PooledBuffer}. When the current slab fills up the
+ * content moves to one of the next size class and the old slab is recycled.
+ * Not thread-safe; one producer writes, then calls {@link #finish()} or
+ * {@link #discard()}.
+ */
+public final class PooledBufferChannel implements WritableByteChannel {
+
+    private final BufferPool pool;
+    private ByteBuffer buffer;
+
+    PooledBufferChannel(BufferPool pool, int expectedSize) {
+        this.pool = pool;
+        this.buffer = pool.acquire(expectedSize);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws ClosedChannelException {
+        if (buffer == null) {
+            throw new ClosedChannelException();
+        }
+        int length = src.remaining();
+        if (buffer.remaining() < length) {
+            grow(buffer.position() + length);
+        }
+        buffer.put(src);
+        return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return buffer != null;
+    }
+
+    /**
+     * No-op so wrapping streams can be closed safely; use {@link #finish()}.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Hands the written bytes over as a buffer holding one reference.
+     */
+    public PooledBuffer finish() {
+        ByteBuffer content = buffer.flip();
+        buffer = null;
+        return pool.toPooled(content);
+    }
+
+    public void discard() {
+        if (buffer != null) {
+            pool.recycle(buffer);
+            buffer = null;
+        }
+    }
+
+    private void grow(int required) {
+        ByteBuffer larger = pool.acquire(Math.max(required, buffer.capacity() * 2));
+        larger.put(buffer.flip());
+        pool.recycle(buffer);
+        buffer = larger;
+    }
+}
@@ -0,0 +1,399 @@
+package com.zpcs.cache;
+
+import com.zpcs.buffer.PooledBuffer;
+import com.zpcs.config.ResultCacheProperties;
+import com.zpcs.dto.request.GenerateImageRequest;
+import com.zpcs.model.GenerationResult;
+import com.zpcs.storage.StorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Content-addressed cache of generation results keyed by
+ * {@link com.zpcs.model.GenerationFingerprint}.
+ * The memory tier is an LRU bounded by total image bytes. The disk tier
+ * only indexes fingerprints to images already written through
+ * {@link StorageService}, so it costs no extra image space; entries whose
+ * image has since been deleted are dropped on lookup.
+ * The index itself is an append-only log replayed at startup, so the disk
+ * tier survives restarts. Appends are not synced, since a lost tail only
+ * costs misses, and the log is rewritten compacted once it holds twice
+ * the entry limit.
+ * The memory tier keeps heap copies rather than pooled buffers, and every
+ * hit hands out a fresh wrapper the caller may release like any other.
+ */
+@Component
+@Slf4j
+public class GenerationResultCache {
+
+    private record MemoryEntry(byte[] data, String mimeType, long expiresAt) {
+    }
+
+    private record DiskEntry(String imageId, String mimeType, long expiresAt) {
+    }
+
+    private static final int MAX_INDEX_FRAME_BYTES = 64 * 1024;
+
+    private final ResultCacheProperties properties;
+    private final StorageService storageService;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, MemoryEntry> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+
+    // The index log has its own lock so file writes never hold up lookups
+    private final ReentrantLock indexLock = new ReentrantLock();
+    private Path indexFile;
+    private FileChannel indexLog;
+    private long indexEntries;
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+
+    public GenerationResultCache(ResultCacheProperties properties, StorageService storageService,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.storageService = storageService;
+        this.memoryHits = meterRegistry.counter("zpcs.result.cache.requests", "result", "hit", "tier", "memory");
+        this.diskHits = meterRegistry.counter("zpcs.result.cache.requests", "result", "hit", "tier", "disk");
+        this.misses = meterRegistry.counter("zpcs.result.cache.requests", "result", "miss", "tier", "none");
+        Gauge.builder("zpcs.result.cache.memory.bytes", this, c -> c.memoryBytes).register(meterRegistry);
+
+        if (properties.isEnabled() && properties.getDiskMaxEntries() > 0) {
+            indexFile = Paths.get(properties.getIndexFile()).toAbsolutePath().normalize();
+            try {
+                loadIndex();
+            } catch (IOException | RuntimeException e) {
+                // Only a cache: carry on with whatever was read, without persisting new entries
+                log.warn("Result cache index {} unusable, disk tier will not persist: {}", indexFile,
+                        e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        indexLock.lock();
+        try {
+            if (indexLog != null) {
+                indexLog.close();
+                indexLog = null;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close result cache index", e);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    public boolean isCacheable(GenerateImageRequest request) {
+        return properties.isEnabled()
+                && !Boolean.TRUE.equals(request.getBypassCache())
+                && properties.getModes().contains(request.getOperationMode());
+    }
+
+    public Optional<GenerationResult> lookup(String fingerprint, GenerateImageRequest request) {
+        if (!isCacheable(request)) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+
+        DiskEntry diskEntry;
+        lock.lock();
+        try {
+            MemoryEntry entry = memory.get(fingerprint);
+            if (entry != null) {
+                if (entry.expiresAt() > now) {
+                    memoryHits.increment();
+                    return Optional.of(toResult(entry.data(), entry.mimeType()));
+                }
+                removeMemory(fingerprint);
+            }
+            diskEntry = disk.get(fingerprint);
+            if (diskEntry != null && diskEntry.expiresAt() <= now) {
+                disk.remove(fingerprint);
+                diskEntry = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (diskEntry != null) {
+            Optional<GenerationResult> loaded = loadFromDisk(fingerprint, diskEntry);
+            if (loaded.isPresent()) {
+                diskHits.increment();
+                return loaded;
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Caches a result whose image was just stored under {@code imageId}.
+     */
+    public void put(String fingerprint, GenerateImageRequest request, GenerationResult result, String imageId) {
+        if (!isCacheable(request)) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + properties.getTtlSeconds() * 1000;
+        DiskEntry diskEntry = new DiskEntry(imageId, result.getMimeType(), expiresAt);
+        // Copied before taking the lock every lookup needs
+        byte[] data = result.getImageData().size() <= properties.getMemoryMaxBytes()
+                ? result.getImageData().toByteArray()
+                : null;
+        lock.lock();
+        try {
+            if (properties.getDiskMaxEntries() > 0) {
+                disk.put(fingerprint, diskEntry);
+                evictDisk();
+            }
+            if (data != null) {
+                putMemory(fingerprint, data, result.getMimeType(), expiresAt);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (properties.getDiskMaxEntries() > 0) {
+            appendIndex(fingerprint, diskEntry);
+        }
+    }
+
+    private Optional<GenerationResult> loadFromDisk(String fingerprint, DiskEntry entry) {
+        if (!storageService.exists(entry.imageId())) {
+            forgetDisk(fingerprint, entry);
+            return Optional.empty();
+        }
+        byte[] data;
+        try (InputStream in = storageService.load(entry.imageId()).getInputStream()) {
+            data = in.readAllBytes();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Result cache could not read image {}: {}", entry.imageId(), e.getMessage());
+            forgetDisk(fingerprint, entry);
+            return Optional.empty();
+        }
+
+        lock.lock();
+        try {
+            putMemory(fingerprint, data, entry.mimeType(), entry.expiresAt());
+        } finally {
+            lock.unlock();
+        }
+        return Optional.of(toResult(data, entry.mimeType()));
+    }
+
+    private static GenerationResult toResult(byte[] data, String mimeType) {
+        return GenerationResult.builder()
+                .imageData(PooledBuffer.wrap(data))
+                .mimeType(mimeType)
+                .build();
+    }
+
+    private void forgetDisk(String fingerprint, DiskEntry entry) {
+        lock.lock();
+        try {
+            disk.remove(fingerprint, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putMemory(String fingerprint, byte[] data, String mimeType, long expiresAt) {
+        long size = data.length;
+        if (size > properties.getMemoryMaxBytes()) {
+            return;
+        }
+        removeMemory(fingerprint);
+        memory.put(fingerprint, new MemoryEntry(data, mimeType, expiresAt));
+        memoryBytes += size;
+
+        Iterator<Map.Entry<String, MemoryEntry>> it = memory.entrySet().iterator();
+        while (memoryBytes > properties.getMemoryMaxBytes() && it.hasNext()) {
+            memoryBytes -= it.next().getValue().data().length;
+            it.remove();
+        }
+    }
+
+    private void removeMemory(String fingerprint) {
+        MemoryEntry removed = memory.remove(fingerprint);
+        if (removed != null) {
+            memoryBytes -= removed.data().length;
+        }
+    }
+
+    // ---- Index log ----
+
+    private void loadIndex() throws IOException {
+        Files.createDirectories(indexFile.getParent());
+        long now = System.currentTimeMillis();
+        long entries = 0;
+        long goodBytes = 0;
+        if (Files.exists(indexFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+                byte[] payload;
+                while ((payload = readFrame(in)) != null) {
+                    DataInputStream entry = new DataInputStream(new ByteArrayInputStream(payload));
+                    String fingerprint = entry.readUTF();
+                    String imageId = entry.readUTF();
+                    String mimeType = entry.readUTF();
+                    long expiresAt = entry.readLong();
+                    if (expiresAt > now) {
+                        disk.put(fingerprint, new DiskEntry(imageId, mimeType.isEmpty() ? null : mimeType,
+                                expiresAt));
+                    } else {
+                        disk.remove(fingerprint);
+                    }
+                    entries++;
+                    goodBytes += 8 + payload.length;
+                }
+            }
+        }
+        evictDisk();
+
+        indexLock.lock();
+        try {
+            indexLog = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (indexLog.size() > goodBytes) {
+                log.warn("Truncating torn result cache index tail: {} bytes", indexLog.size() - goodBytes);
+                indexLog.truncate(goodBytes);
+            }
+            indexLog.position(goodBytes);
+            indexEntries = entries;
+            if (indexEntries > 2L * properties.getDiskMaxEntries()) {
+                rewriteIndex();
+            }
+        } finally {
+            indexLock.unlock();
+        }
+        log.info("Loaded result cache index: {} fingerprints from {} entries", disk.size(), entries);
+    }
+
+    private void appendIndex(String fingerprint, DiskEntry entry) {
+        indexLock.lock();
+        try {
+            if (indexLog == null) {
+                return;
+            }
+            ByteBuffer frame = frame(fingerprint, entry);
+            while (frame.hasRemaining()) {
+                indexLog.write(frame);
+            }
+            if (++indexEntries > 2L * properties.getDiskMaxEntries()) {
+                rewriteIndex();
+            }
+        } catch (IOException e) {
+            log.warn("Result cache index write failed; new entries will not survive a restart", e);
+            try {
+                indexLog.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            indexLog = null;
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /** Replaces the log with the live entries, least recently used first. Caller holds the index lock. */
+    private void rewriteIndex() throws IOException {
+        List<Map.Entry<String, DiskEntry>> live;
+        lock.lock();
+        try {
+            live = disk.entrySet().stream().map(e -> Map.entry(e.getKey(), e.getValue())).toList();
+        } finally {
+            lock.unlock();
+        }
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, DiskEntry> entry : live) {
+                ByteBuffer frame = frame(entry.getKey(), entry.getValue());
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+            }
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        indexLog.close();
+        indexLog = FileChannel.open(indexFile, StandardOpenOption.WRITE);
+        indexLog.position(indexLog.size());
+        indexEntries = live.size();
+    }
+
+    private static ByteBuffer frame(String fingerprint, DiskEntry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(fingerprint);
+            out.writeUTF(entry.imageId());
+            out.writeUTF(entry.mimeType() != null ? entry.mimeType() : "");
+            out.writeLong(entry.expiresAt());
+        }
+        byte[] payload = bytes.toByteArray();
+        return ByteBuffer.allocate(8 + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload)
+                .flip();
+    }
+
+    /** Next frame's payload, or null at end of input or at a torn or corrupt frame. */
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > MAX_INDEX_FRAME_BYTES) {
+                return null;
+            }
+            int checksum = in.readInt();
+            byte[] payload = in.readNBytes(length);
+            if (payload.length != length || checksum(payload) != checksum) {
+                return null;
+            }
+            return payload;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private void evictDisk() {
+        Iterator<String> it = disk.keySet().iterator();
+        while (disk.size() > properties.getDiskMaxEntries() && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
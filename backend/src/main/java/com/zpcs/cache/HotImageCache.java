@@ -0,0 +1,203 @@
+package com.zpcs.cache;
+
+import com.zpcs.buffer.BufferPool;
+import com.zpcs.buffer.PooledBuffer;
+import com.zpcs.buffer.PooledBufferChannel;
+import com.zpcs.config.HotCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Off-heap LRU of original image bytes, bounded by the direct memory it holds.
+ * Entries are {@link PooledBuffer}s: a freshly generated image is retained
+ * rather than copied, and a read miss is loaded into a pooled slab. Every
+ * lookup hands out its own reference, so an entry evicted while a response
+ * is still writing it stays intact until that response releases it.
+ * Plain LRU suits the traffic, a burst of fetches right after generation;
+ * there are no scans for a frequency filter to keep out.
+ */
+@Component
+public class HotImageCache {
+
+    private final HotCacheProperties properties;
+    private final BufferPool bufferPool;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, PooledBuffer> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long residentBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public HotImageCache(HotCacheProperties properties, BufferPool bufferPool, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.bufferPool = bufferPool;
+        this.hits = meterRegistry.counter("zpcs.hotcache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("zpcs.hotcache.requests", "result", "miss");
+        this.evictions = meterRegistry.counter("zpcs.hotcache.evictions");
+        Gauge.builder("zpcs.hotcache.resident.bytes", this, HotImageCache::residentBytes).register(meterRegistry);
+        Gauge.builder("zpcs.hotcache.entries", this, HotImageCache::size).register(meterRegistry);
+        Gauge.builder("zpcs.hotcache.hit.ratio", this, HotImageCache::hitRatio).register(meterRegistry);
+    }
+
+    /**
+     * The cached image, as a reference the caller must release.
+     */
+    public Optional<PooledBuffer> get(String id) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        lock.lock();
+        try {
+            PooledBuffer cached = entries.get(id);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached.retain());
+            }
+        } finally {
+            lock.unlock();
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Caches an image that was just stored; the caller keeps its own reference.
+     * Heap-backed images are copied into a pooled slab.
+     */
+    public void put(String id, PooledBuffer image) {
+        if (!admits(image.size())) {
+            return;
+        }
+        if (image.nioBuffer().isDirect()) {
+            insert(id, image.retain());
+            return;
+        }
+        PooledBufferChannel channel = bufferPool.newChannel(image.size());
+        try {
+            channel.write(image.nioBuffer());
+        } catch (ClosedChannelException e) {
+            throw new IllegalStateException(e);
+        }
+        insert(id, channel.finish());
+    }
+
+    /**
+     * Reads an image that missed into the cache. The whole object is read,
+     * so only call this when the whole body is about to be sent.
+     *
+     * @return a reference the caller must release, or empty if the image is
+     *         not cacheable and should be served from {@code resource}
+     */
+    public Optional<PooledBuffer> load(String id, Resource resource) throws IOException {
+        long length = resource.contentLength();
+        if (!admits(length)) {
+            return Optional.empty();
+        }
+        PooledBufferChannel channel = bufferPool.newChannel((int) length);
+        try {
+            if (resource.isFile()) {
+                try (FileChannel file = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+                    long position = 0;
+                    while (position < length) {
+                        long read = file.transferTo(position, length - position, channel);
+                        if (read <= 0) {
+                            throw new EOFException("Image " + id + " shrank while being cached");
+                        }
+                        position += read;
+                    }
+                }
+            } else {
+                try (InputStream in = resource.getInputStream()) {
+                    StreamUtils.copy(in, Channels.newOutputStream(channel));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.discard();
+            throw e;
+        }
+        PooledBuffer image = channel.finish();
+        insert(id, image.retain());
+        return Optional.of(image);
+    }
+
+    public void invalidate(String id) {
+        lock.lock();
+        try {
+            PooledBuffer removed = entries.remove(id);
+            if (removed != null) {
+                residentBytes -= removed.capacity();
+                removed.release();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean admits(long size) {
+        return properties.isEnabled() && size > 0 && size <= properties.getMaxEntryBytes();
+    }
+
+    /** Takes over one reference to {@code image}. */
+    private void insert(String id, PooledBuffer image) {
+        lock.lock();
+        try {
+            PooledBuffer previous = entries.put(id, image);
+            residentBytes += image.capacity();
+            if (previous != null) {
+                residentBytes -= previous.capacity();
+                previous.release();
+            }
+            Iterator<PooledBuffer> it = entries.values().iterator();
+            while (residentBytes > properties.getMaxBytes() && it.hasNext()) {
+                PooledBuffer eldest = it.next();
+                it.remove();
+                residentBytes -= eldest.capacity();
+                eldest.release();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long residentBytes() {
+        lock.lock();
+        try {
+            return residentBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
@@ -0,0 +1,253 @@
+package com.zpcs.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limit for upstream calls.
+ * The limit grows by roughly one per limit's worth of fast, successful calls
+ * while it is actually being used, and shrinks multiplicatively on a 429 or
+ * an upstream timeout. Latency is a weaker signal: each request class (say,
+ * 1K and 4K images) is compared only with its own smoothed baseline, and
+ * only a sustained rise past {@code latencyTolerance} times that baseline
+ * trims the limit, at most once per limit's worth of calls.
+ * Callers beyond the limit queue for up to {@code maxWaitMs}.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double LATENCY_BACKOFF_RATIO = 0.9;
+    /** Weight of a sample in a class's baseline, roughly its last five hundred calls. */
+    private static final double BASELINE_WEIGHT = 0.002;
+    /** Weight of a sample in a class's recent latency, roughly its last ten calls. */
+    private static final double RECENT_WEIGHT = 0.1;
+    /** Calls a class needs before its latency is trusted as a signal. */
+    private static final int MIN_CLASS_SAMPLES = 20;
+    /** Classes tracked separately; anything beyond shares one entry. */
+    private static final int MAX_CLASSES = 64;
+    private static final String OTHER_CLASS = "other";
+
+    /** Smoothed latencies of one request class. */
+    private static final class LatencyClass {
+        double baselineMs;
+        double recentMs;
+        long samples;
+    }
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private final Map<String, LatencyClass> classes = new HashMap<>();
+    private int sinceLatencyBackoff;
+    private double avgLatencyMs;
+
+    private final Counter queueFullRejections;
+    private final Counter timeoutRejections;
+    private final Counter throttled;
+    private final Counter timeouts;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+            double latencyTolerance, int maxQueue, long maxWaitMs, MeterRegistry meterRegistry) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+
+        Gauge.builder("zpcs.model.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("zpcs.model.limiter.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+        Gauge.builder("zpcs.model.limiter.queued", this, AdaptiveConcurrencyLimiter::getQueued)
+                .register(meterRegistry);
+        this.queueFullRejections = meterRegistry.counter("zpcs.model.limiter.rejections", "reason", "queue_full");
+        this.timeoutRejections = meterRegistry.counter("zpcs.model.limiter.rejections", "reason", "timeout");
+        this.throttled = meterRegistry.counter("zpcs.model.limiter.throttled");
+        this.timeouts = meterRegistry.counter("zpcs.model.limiter.timeouts");
+    }
+
+    /**
+     * Waits for a permit; returns false if the queue is full or the wait ran out.
+     */
+    public boolean acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            if (queued >= maxQueue) {
+                queueFullRejections.increment();
+                return false;
+            }
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        timeoutRejections.increment();
+                        return false;
+                    }
+                    remaining = permitReleased.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a permit for a call that succeeded after {@code latencyMs};
+     * {@code requestClass} groups calls expected to take about as long.
+     */
+    public void onSuccess(String requestClass, long latencyMs) {
+        lock.lock();
+        try {
+            if (recordLatency(requestClass, latencyMs)) {
+                if (++sinceLatencyBackoff >= limit) {
+                    sinceLatencyBackoff = 0;
+                    decrease(LATENCY_BACKOFF_RATIO);
+                }
+            } else if (inFlight >= limit / 2) {
+                // Only grow a limit that is actually being used
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onThrottled() {
+        lock.lock();
+        try {
+            throttled.increment();
+            decrease(backoffRatio);
+            log.warn("Upstream throttled, concurrency limit lowered to {}", (int) limit);
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a permit for a call the upstream did not answer in time.
+     */
+    public void onTimeout() {
+        lock.lock();
+        try {
+            timeouts.increment();
+            decrease(backoffRatio);
+            log.warn("Upstream timed out, concurrency limit lowered to {}", (int) limit);
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a permit for a call whose outcome says nothing about capacity.
+     */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Seconds until a rejected caller could expect a permit: the queue ahead
+     * of it drained at the current limit and average latency.
+     */
+    public int retryAfterSeconds() {
+        lock.lock();
+        try {
+            double drainMs = avgLatencyMs * (queued + 1) / Math.max(1, limit);
+            return (int) Math.max(1, Math.ceil(drainMs / 1000));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        inFlight--;
+        permitReleased.signalAll();
+    }
+
+    private void decrease(double ratio) {
+        limit = Math.max(minLimit, limit * ratio);
+    }
+
+    /**
+     * @return whether the class's recent latency is past the tolerance of its baseline
+     */
+    private boolean recordLatency(String requestClass, long latencyMs) {
+        avgLatencyMs = avgLatencyMs == 0 ? latencyMs : avgLatencyMs * 0.9 + latencyMs * 0.1;
+        LatencyClass latency = classes.get(requestClass);
+        if (latency == null) {
+            latency = classes.computeIfAbsent(classes.size() < MAX_CLASSES ? requestClass : OTHER_CLASS,
+                    k -> new LatencyClass());
+        }
+        if (latency.samples++ == 0) {
+            latency.baselineMs = latencyMs;
+            latency.recentMs = latencyMs;
+            return false;
+        }
+        // The baseline follows the upstream if it becomes slower for good, just far more slowly
+        latency.baselineMs += (latencyMs - latency.baselineMs) * BASELINE_WEIGHT;
+        latency.recentMs += (latencyMs - latency.recentMs) * RECENT_WEIGHT;
+        return latency.samples >= MIN_CLASS_SAMPLES && latency.recentMs > latency.baselineMs * latencyTolerance;
+    }
+}
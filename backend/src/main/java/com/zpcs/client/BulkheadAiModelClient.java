@@ -0,0 +1,59 @@
+package com.zpcs.client;
+
+import com.zpcs.exception.CapacityExceededException;
+import com.zpcs.exception.GeminiApiException;
+import com.zpcs.model.AiModelRequest;
+import com.zpcs.model.AiModelResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outermost decorator bounding how many callers may be inside the model
+ * client chain at once. With virtual threads request concurrency is
+ * effectively unbounded, so this is what keeps thousands of waiting
+ * requests from turning into thousands of upstream calls and retries.
+ * Callers wait up to {@code maxWaitMs} for a permit, then get a 429.
+ */
+@Slf4j
+public class BulkheadAiModelClient implements AiModelClient {
+
+    private final AiModelClient delegate;
+    private final Semaphore permits;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMs;
+
+    public BulkheadAiModelClient(AiModelClient delegate, int maxConcurrentCalls, long maxWaitMs,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMs = maxWaitMs;
+
+        Gauge.builder("zpcs.model.bulkhead.inflight", permits, p -> maxConcurrentCalls - p.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("zpcs.model.bulkhead.waiting", permits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public AiModelResponse generateImage(AiModelRequest request) {
+        try {
+            if (!permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Model bulkhead full ({} calls in flight), rejecting request", maxConcurrentCalls);
+                throw new CapacityExceededException((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxWaitMs)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeminiApiException("Interrupted while waiting for a model call slot", e);
+        }
+        try {
+            return delegate.generateImage(request);
+        } finally {
+            permits.release();
+        }
+    }
+}
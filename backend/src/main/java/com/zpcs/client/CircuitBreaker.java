@@ -0,0 +1,134 @@
+package com.zpcs.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Consecutive-failure circuit breaker with a half-open probing state.
+ * CLOSED lets every call through, OPEN fails fast until the open period
+ * elapses, and HALF_OPEN admits a limited number of trial calls whose
+ * outcome closes or re-opens the circuit.
+ * Guarded by a {@link ReentrantLock} rather than {@code synchronized} so
+ * virtual threads never pin their carrier while holding it.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openStateMillis;
+    private final int halfOpenMaxCalls;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int halfOpenCalls;
+    private long openedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, long openStateMillis, int halfOpenMaxCalls) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openStateMillis = openStateMillis;
+        this.halfOpenMaxCalls = halfOpenMaxCalls;
+    }
+
+    /**
+     * Returns true if a call may proceed; every permitted call must be
+     * followed by {@link #onSuccess()}, {@link #onFailure()} or {@link #release()}.
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() - openedAt < openStateMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                halfOpenCalls = 0;
+                log.info("Circuit '{}' half-open, probing upstream", name);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenCalls >= halfOpenMaxCalls) {
+                    return false;
+                }
+                halfOpenCalls++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (state != State.CLOSED) {
+                log.info("Circuit '{}' closed", name);
+            }
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            halfOpenCalls = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onFailure() {
+        lock.lock();
+        try {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                if (state != State.OPEN) {
+                    log.warn("Circuit '{}' opened after {} consecutive failures", name, consecutiveFailures);
+                }
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back the permit of a call that ended without telling anything
+     * about the upstream, such as one cancelled by its caller.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && halfOpenCalls > 0) {
+                halfOpenCalls--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Seconds until an open circuit will admit a trial call (at least 1).
+     */
+    public long retryAfterSeconds() {
+        lock.lock();
+        try {
+            long remaining = openStateMillis - (System.currentTimeMillis() - openedAt);
+            return Math.max(1, (remaining + 999) / 1000);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,15 +1,17 @@
 package com.zpcs.client;
 
-import com.google.genai.Client;
+import com.google.genai.errors.ApiException;
 import com.google.genai.types.GenerateContentConfig;
 import com.google.genai.types.GenerateContentResponse;
 import com.google.genai.types.Part;
-import com.zpcs.config.GeminiProperties;
+import com.zpcs.buffer.PooledBuffer;
 import com.zpcs.exception.GeminiApiException;
+import com.zpcs.exception.QuotaExceededException;
 import com.zpcs.model.AiModelRequest;
 import com.zpcs.model.AiModelResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
@@ -18,35 +20,38 @@ import java.util.Arrays;
  * Adapter Pattern: adapts the external Gemini API into our internal
  * AiModelResponse.
  * Isolates all vendor-specific logic here.
+ * Calls go through the shared client owned by {@link GeminiClientProvider}.
+ * Upstream errors are classified here so decorators can decide what to retry.
  */
-@Service
+@Service("upstreamAiModelClient")
+@Profile("!stub")
 @RequiredArgsConstructor
 @Slf4j
 public class GeminiClientAdapter implements AiModelClient {
 
-    private final GeminiProperties properties;
+    private static final GenerateContentConfig IMAGE_CONFIG = GenerateContentConfig.builder()
+            .responseModalities(Arrays.asList("TEXT", "IMAGE"))
+            .build();
+
+    private final GeminiClientProvider clientProvider;
 
     @Override
     public AiModelResponse generateImage(AiModelRequest request) {
         long start = System.currentTimeMillis();
 
-        try (Client client = Client.builder().apiKey(properties.getApiKey()).build()) {
-            GenerateContentConfig config = GenerateContentConfig.builder()
-                    .responseModalities(Arrays.asList("TEXT", "IMAGE"))
-                    .build();
-
-            GenerateContentResponse response = client.models.generateContent(
+        try {
+            GenerateContentResponse response = clientProvider.execute(client -> client.models.generateContent(
                     request.getModel(),
                     request.getPrompt(),
-                    config);
+                    IMAGE_CONFIG));
 
             for (Part part : response.parts()) {
                 if (part.inlineData().isPresent()) {
                     var blob = part.inlineData().get();
                     if (blob.data().isPresent()) {
-                        byte[] imageData = blob.data().get();
+                        // The SDK has already decoded to the heap; wrap rather than copy
                         return AiModelResponse.builder()
-                                .imageData(imageData)
+                                .imageData(PooledBuffer.wrap(blob.data().get()))
                                 .mimeType(blob.mimeType().isPresent() ? blob.mimeType().get() : "image/png")
                                 .processingTimeMs(System.currentTimeMillis() - start)
                                 .build();
@@ -57,12 +62,14 @@ public class GeminiClientAdapter implements AiModelClient {
             // If no image is returned, throw an exception
             throw new GeminiApiException("No image returned from Gemini API");
 
+        } catch (GeminiApiException | QuotaExceededException e) {
+            throw e;
+        } catch (ApiException e) {
+            throw GeminiErrors.translate(e.code(), e.getMessage(), e);
         } catch (Exception e) {
-            if (e instanceof GeminiApiException) {
-                throw (GeminiApiException) e;
-            }
             log.error("Gemini API call failed", e);
-            throw new GeminiApiException("Gemini API call failed: " + (e.getMessage() != null ? e.getMessage() : ""));
+            throw new GeminiApiException("Gemini API call failed: " + (e.getMessage() != null ? e.getMessage() : ""),
+                    0, true, e);
         }
     }
 }
@@ -0,0 +1,118 @@
+package com.zpcs.client;
+
+import com.google.genai.Client;
+import com.google.genai.types.HttpOptions;
+import com.zpcs.config.GeminiProperties;
+import com.zpcs.exception.GeminiApiException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Owns the single long-lived Gemini {@link Client} shared by all strategies.
+ * The SDK client keeps its HTTP connections alive between calls, so it is built
+ * once at startup, warmed up, and closed when the context shuts down.
+ * Concurrent calls are bounded by a lease per pooled connection.
+ */
+@Component
+@Profile("!stub")
+@RequiredArgsConstructor
+@Slf4j
+public class GeminiClientProvider {
+
+    private final GeminiProperties properties;
+
+    private Client client;
+    private Semaphore leases;
+
+    @PostConstruct
+    public void init() {
+        client = Client.builder()
+                .apiKey(properties.getApiKey())
+                .httpOptions(HttpOptions.builder()
+                        .timeout(properties.getTimeoutSeconds() * 1000)
+                        .build())
+                .build();
+        leases = new Semaphore(properties.getMaxConnections(), true);
+        log.info("Gemini client initialized (model={}, maxConnections={})",
+                properties.getModel(), properties.getMaxConnections());
+
+        if (properties.isWarmUpOnStartup()) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Runs a call against the shared client while holding a connection lease.
+     */
+    public <T> T execute(Function<Client, T> call) {
+        acquireLease();
+        try {
+            return call.apply(client);
+        } finally {
+            leases.release();
+        }
+    }
+
+    /**
+     * Lightweight upstream probe: resolves the configured model's metadata.
+     * Only runs on a lease that is free right now, so it never waits behind
+     * or takes capacity from real calls.
+     *
+     * @return false if every connection was busy and nothing was probed
+     */
+    public boolean probe() {
+        // tryAcquire() barges past a fair queue, so defer to anyone already waiting
+        if (leases.hasQueuedThreads() || !leases.tryAcquire()) {
+            return false;
+        }
+        try {
+            client.models.get(properties.getModel(), null);
+            return true;
+        } finally {
+            leases.release();
+        }
+    }
+
+    public int availableLeases() {
+        return leases.availablePermits();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (client != null) {
+            client.close();
+            log.info("Gemini client closed");
+        }
+    }
+
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            probe();
+            log.info("Gemini client warmed up in {} ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // Warm-up is best effort: the first real request will open the connection instead.
+            log.warn("Gemini client warm-up failed: {}", e.getMessage());
+        }
+    }
+
+    private void acquireLease() {
+        try {
+            if (!leases.tryAcquire(properties.getTimeoutSeconds(), TimeUnit.SECONDS)) {
+                throw new GeminiApiException("No Gemini connection available within "
+                        + properties.getTimeoutSeconds() + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeminiApiException("Interrupted while waiting for a Gemini connection", e);
+        }
+    }
+}
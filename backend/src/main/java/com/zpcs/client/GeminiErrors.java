@@ -0,0 +1,51 @@
+package com.zpcs.client;
+
+import com.zpcs.exception.GeminiApiException;
+import com.zpcs.exception.QuotaExceededException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps upstream Gemini HTTP failures onto application exceptions.
+ * Shared by the SDK-based and the reactive adapter so both classify
+ * errors the same way for retries and the circuit breaker.
+ */
+@Slf4j
+final class GeminiErrors {
+
+    /** Gemini reports quota back-off as "Please retry in 12.3s." or a RetryInfo "retryDelay": "12s". */
+    private static final Pattern RETRY_DELAY = Pattern.compile(
+            "(?:retry in|retryDelay\"?\\s*:\\s*\"?)\\s*(\\d+(?:\\.\\d+)?)s", Pattern.CASE_INSENSITIVE);
+    private static final int DEFAULT_RETRY_AFTER_SECONDS = 30;
+
+    private GeminiErrors() {
+    }
+
+    static RuntimeException translate(int status, String message, Throwable cause) {
+        if (status == 429) {
+            int retryAfter = retryAfterSeconds(message);
+            log.warn("Gemini quota exceeded, retry after {}s", retryAfter);
+            return new QuotaExceededException(retryAfter);
+        }
+        boolean retryable = status >= 500 || status == 408;
+        if (retryable) {
+            log.warn("Gemini API returned {}: {}", status, message);
+        } else {
+            log.error("Gemini API rejected request with {}: {}", status, message);
+        }
+        return new GeminiApiException("Gemini API call failed (" + status + "): " + message,
+                status, retryable, cause);
+    }
+
+    static int retryAfterSeconds(String message) {
+        if (message != null) {
+            Matcher matcher = RETRY_DELAY.matcher(message);
+            if (matcher.find()) {
+                return Math.max(1, (int) Math.ceil(Double.parseDouble(matcher.group(1))));
+            }
+        }
+        return DEFAULT_RETRY_AFTER_SECONDS;
+    }
+}
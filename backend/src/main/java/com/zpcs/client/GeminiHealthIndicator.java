@@ -0,0 +1,62 @@
+package com.zpcs.client;
+
+import com.zpcs.config.GeminiProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator health for the shared Gemini client.
+ * Probe results are cached so health polling never floods the upstream,
+ * and a probe never waits for a connection: with all of them busy the
+ * status is UNKNOWN.
+ */
+@Component("gemini")
+@Profile("!stub")
+@RequiredArgsConstructor
+public class GeminiHealthIndicator implements HealthIndicator {
+
+    private final GeminiClientProvider clientProvider;
+    private final GeminiProperties properties;
+
+    private volatile Health cached;
+    private volatile long cachedAt;
+
+    @Override
+    public Health health() {
+        long now = System.currentTimeMillis();
+        Health current = cached;
+        if (current == null || now - cachedAt > properties.getHealthCacheSeconds() * 1000L) {
+            current = probe();
+            cached = current;
+            cachedAt = now;
+        }
+        return current;
+    }
+
+    private Health probe() {
+        long start = System.currentTimeMillis();
+        try {
+            if (!clientProvider.probe()) {
+                // Saturated by real traffic: busy rather than broken, and not worth queueing behind
+                return Health.unknown()
+                        .withDetail("model", properties.getModel())
+                        .withDetail("reason", "All connections busy, probe skipped")
+                        .withDetail("availableConnections", 0)
+                        .build();
+            }
+            return Health.up()
+                    .withDetail("model", properties.getModel())
+                    .withDetail("latencyMs", System.currentTimeMillis() - start)
+                    .withDetail("availableConnections", clientProvider.availableLeases())
+                    .build();
+        } catch (Exception e) {
+            return Health.down()
+                    .withDetail("model", properties.getModel())
+                    .withDetail("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.zpcs.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Push counterpart of {@link GeminiResponseParser#streamImageData}: the
+ * response is fed chunk by chunk as it arrives and the first candidate's
+ * inline image is Base64-decoded into the sink as its text streams past, so
+ * neither a thread nor the whole Base64 string is held while waiting for
+ * the network. Only the JSON structure needed to find the image is
+ * tracked; everything else is skipped without being materialised.
+ * Not thread-safe; feed from one subscriber at a time.
+ */
+final class GeminiResponseDecoder {
+
+    private static final String DEFAULT_MIME_TYPE = "image/png";
+    private static final int BASE64_CHUNK_CHARS = 64 * 1024;
+    /** Keys and mime types longer than this cannot be ones we look for. */
+    private static final int MAX_KEY_BYTES = 64;
+
+    /** Keys (or array index 0) leading from the root object to an inline image part's fields. */
+    private static final String[] PATH = { "candidates", null, "content", "parts", null, "inlineData" };
+
+    private enum State {
+        VALUE, KEY_OR_END, COLON, AFTER_VALUE, STRING, ESCAPE, UNICODE, LITERAL
+    }
+
+    private enum Capture {
+        KEY, DATA, MIME_TYPE, SKIP
+    }
+
+    private static final class Frame {
+        final boolean array;
+        final boolean onPath;
+        String key;
+        int index;
+
+        Frame(boolean array, boolean onPath) {
+            this.array = array;
+            this.onPath = onPath;
+        }
+    }
+
+    private final WritableByteChannel sink;
+    private final List<Frame> stack = new ArrayList<>();
+    private State state = State.VALUE;
+    private Capture capture;
+    private final ByteArrayOutputStream text = new ByteArrayOutputStream(MAX_KEY_BYTES);
+    private int unicode;
+    private int unicodeDigits;
+
+    private final byte[] base64 = new byte[BASE64_CHUNK_CHARS];
+    private final byte[] decoded = new byte[BASE64_CHUNK_CHARS / 4 * 3];
+    private int base64Length;
+
+    private boolean started;
+    private boolean dataFound;
+    private String mimeType;
+    private boolean done;
+
+    GeminiResponseDecoder(WritableByteChannel sink) {
+        this.sink = sink;
+    }
+
+    /** Consumes the remaining bytes of {@code chunk}. */
+    void feed(ByteBuffer chunk) throws IOException {
+        while (chunk.hasRemaining() && !done) {
+            byte b = chunk.get();
+            if (!accept(b)) {
+                // A literal ended at a structural character; that character still needs handling
+                chunk.position(chunk.position() - 1);
+            }
+        }
+        // Anything after the image is read and ignored
+        chunk.position(chunk.limit());
+    }
+
+    /**
+     * @return the image mime type, defaulting to PNG when absent
+     * @throws IllegalStateException if the response held no image
+     */
+    String finish() {
+        if (!started) {
+            throw new IllegalStateException("Invalid Gemini response format");
+        }
+        if (!done) {
+            throw new IllegalStateException("No image data found in Gemini response");
+        }
+        return mimeType != null ? mimeType : DEFAULT_MIME_TYPE;
+    }
+
+    /** @return false if {@code b} was not consumed and must be offered again */
+    private boolean accept(byte b) throws IOException {
+        switch (state) {
+            case STRING -> {
+                if (b == '"') {
+                    endString();
+                } else if (b == '\\') {
+                    state = State.ESCAPE;
+                } else {
+                    append(b);
+                }
+            }
+            case ESCAPE -> {
+                state = State.STRING;
+                switch (b) {
+                    case 'n' -> append((byte) '\n');
+                    case 'r' -> append((byte) '\r');
+                    case 't' -> append((byte) '\t');
+                    case 'b' -> append((byte) '\b');
+                    case 'f' -> append((byte) '\f');
+                    case 'u' -> {
+                        state = State.UNICODE;
+                        unicode = 0;
+                        unicodeDigits = 0;
+                    }
+                    default -> append(b);
+                }
+            }
+            case UNICODE -> {
+                int digit = Character.digit(b, 16);
+                if (digit < 0) {
+                    throw invalid();
+                }
+                unicode = unicode << 4 | digit;
+                if (++unicodeDigits == 4) {
+                    state = State.STRING;
+                    for (byte encoded : String.valueOf((char) unicode).getBytes(StandardCharsets.UTF_8)) {
+                        append(encoded);
+                    }
+                }
+            }
+            case LITERAL -> {
+                if (isWhitespace(b) || b == ',' || b == '}' || b == ']') {
+                    state = State.AFTER_VALUE;
+                    return false;
+                }
+            }
+            case VALUE -> value(b);
+            case KEY_OR_END -> {
+                if (b == '"') {
+                    startString(Capture.KEY);
+                } else if (b == '}') {
+                    endContainer();
+                } else if (!isWhitespace(b)) {
+                    throw invalid();
+                }
+            }
+            case COLON -> {
+                if (b == ':') {
+                    state = State.VALUE;
+                } else if (!isWhitespace(b)) {
+                    throw invalid();
+                }
+            }
+            case AFTER_VALUE -> afterValue(b);
+        }
+        return true;
+    }
+
+    private void value(byte b) {
+        if (isWhitespace(b)) {
+            return;
+        }
+        if (!started && b != '{') {
+            throw invalid();
+        }
+        started = true;
+        switch (b) {
+            case '{' -> {
+                stack.add(new Frame(false, childOnPath()));
+                state = State.KEY_OR_END;
+            }
+            case '[' -> {
+                stack.add(new Frame(true, childOnPath()));
+                state = State.VALUE;
+            }
+            case ']' -> {
+                // Only valid for an empty array
+                if (stack.isEmpty() || !top().array) {
+                    throw invalid();
+                }
+                endContainer();
+            }
+            case '"' -> startString(valueCapture());
+            default -> state = State.LITERAL;
+        }
+    }
+
+    private void afterValue(byte b) {
+        if (isWhitespace(b)) {
+            return;
+        }
+        if (stack.isEmpty()) {
+            throw invalid();
+        }
+        Frame top = top();
+        switch (b) {
+            case ',' -> {
+                if (top.array) {
+                    top.index++;
+                    state = State.VALUE;
+                } else {
+                    state = State.KEY_OR_END;
+                }
+            }
+            case '}', ']' -> {
+                if (top.array != (b == ']')) {
+                    throw invalid();
+                }
+                endContainer();
+            }
+            default -> throw invalid();
+        }
+    }
+
+    private void endContainer() {
+        Frame closed = stack.remove(stack.size() - 1);
+        if (closed.onPath && stack.size() == PATH.length && dataFound) {
+            done = true;
+        }
+        state = State.AFTER_VALUE;
+    }
+
+    /** Whether a container opened now lies on the path to an inline image part. */
+    private boolean childOnPath() {
+        if (stack.isEmpty()) {
+            return true;
+        }
+        Frame parent = top();
+        int depth = stack.size() - 1;
+        if (!parent.onPath || depth >= PATH.length) {
+            return false;
+        }
+        String expected = PATH[depth];
+        if (expected == null) {
+            // candidates: only the first one; parts: any of them
+            return parent.array && (depth != 1 || parent.index == 0);
+        }
+        return !parent.array && expected.equals(parent.key);
+    }
+
+    private Capture valueCapture() {
+        Frame parent = top();
+        if (!parent.onPath || stack.size() != PATH.length + 1 || parent.array) {
+            return Capture.SKIP;
+        }
+        if ("data".equals(parent.key)) {
+            return Capture.DATA;
+        }
+        return "mimeType".equals(parent.key) ? Capture.MIME_TYPE : Capture.SKIP;
+    }
+
+    private void startString(Capture role) {
+        capture = role;
+        text.reset();
+        base64Length = 0;
+        state = State.STRING;
+    }
+
+    private void append(byte b) throws IOException {
+        switch (capture) {
+            case KEY, MIME_TYPE -> {
+                if (text.size() < MAX_KEY_BYTES) {
+                    text.write(b);
+                }
+            }
+            case DATA -> {
+                if (b == '\n' || b == '\r') {
+                    return;
+                }
+                base64[base64Length++] = b;
+                if (base64Length == base64.length) {
+                    drainBase64();
+                }
+            }
+            case SKIP -> {
+            }
+        }
+    }
+
+    private void endString() throws IOException {
+        switch (capture) {
+            case KEY -> {
+                top().key = text.toString(StandardCharsets.UTF_8);
+                state = State.COLON;
+                return;
+            }
+            case MIME_TYPE -> mimeType = text.toString(StandardCharsets.UTF_8);
+            case DATA -> {
+                drainBase64();
+                dataFound = true;
+            }
+            case SKIP -> {
+            }
+        }
+        state = State.AFTER_VALUE;
+    }
+
+    private void drainBase64() throws IOException {
+        if (base64Length == 0) {
+            return;
+        }
+        int length;
+        try {
+            // Only the final chunk of an image is partial
+            byte[] chars = base64Length == base64.length ? base64 : Arrays.copyOf(base64, base64Length);
+            length = Base64.getDecoder().decode(chars, decoded);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid image data in Gemini response", e);
+        }
+        base64Length = 0;
+        ByteBuffer out = ByteBuffer.wrap(decoded, 0, length);
+        while (out.hasRemaining()) {
+            sink.write(out);
+        }
+    }
+
+    private Frame top() {
+        return stack.get(stack.size() - 1);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static IllegalStateException invalid() {
+        return new IllegalStateException("Invalid Gemini response format");
+    }
+}
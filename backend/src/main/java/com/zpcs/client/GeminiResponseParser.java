@@ -1,7 +1,16 @@
 package com.zpcs.client;
 
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
@@ -9,10 +18,15 @@ import java.util.Map;
 /**
  * Utility class to parse the raw Gemini API JSON response
  * and extract the generated image bytes.
+ * The streaming variant never builds the JSON tree or the Base64 string;
+ * it decodes the image part in chunks straight into a channel.
  */
 @Slf4j
 public final class GeminiResponseParser {
 
+    private static final String DEFAULT_MIME_TYPE = "image/png";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     private GeminiResponseParser() {
     }
 
@@ -41,4 +55,122 @@ public final class GeminiResponseParser {
             throw new IllegalStateException("Invalid Gemini response format", e);
         }
     }
+
+    /**
+     * Mime type of the first inline image part, defaulting to PNG when absent.
+     */
+    @SuppressWarnings("unchecked")
+    public static String extractMimeType(Map<String, Object> responseMap) {
+        try {
+            List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseMap.get("candidates");
+            Map<String, Object> content = (Map<String, Object>) candidates.get(0).get("content");
+            List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
+
+            for (Map<String, Object> part : parts) {
+                if (part.containsKey("inlineData")) {
+                    Object mimeType = ((Map<String, Object>) part.get("inlineData")).get("mimeType");
+                    return mimeType != null ? (String) mimeType : DEFAULT_MIME_TYPE;
+                }
+            }
+            return DEFAULT_MIME_TYPE;
+        } catch (ClassCastException | NullPointerException | IndexOutOfBoundsException e) {
+            return DEFAULT_MIME_TYPE;
+        }
+    }
+
+    /**
+     * Decodes the first inline image of the first candidate from a raw response
+     * stream into {@code sink}, holding at most a parser buffer of it at a time.
+     *
+     * @return the image mime type, defaulting to PNG when absent
+     */
+    public static String streamImageData(InputStream json, WritableByteChannel sink) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("Invalid Gemini response format");
+            }
+            OutputStream out = Channels.newOutputStream(sink);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("candidates".equals(field) && value == JsonToken.START_ARRAY) {
+                    if (parser.nextToken() != JsonToken.START_OBJECT) {
+                        throw new IllegalStateException("No candidates in Gemini response");
+                    }
+                    String mimeType = readCandidate(parser, out);
+                    if (mimeType != null) {
+                        return mimeType;
+                    }
+                    parser.skipChildren();
+                    break;
+                }
+                parser.skipChildren();
+            }
+            throw new IllegalStateException("No image data found in Gemini response");
+        }
+    }
+
+    private static String readCandidate(JsonParser parser, OutputStream out) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"content".equals(field) || value != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String contentField = parser.currentName();
+                JsonToken parts = parser.nextToken();
+                if ("parts".equals(contentField) && parts == JsonToken.START_ARRAY) {
+                    String mimeType = readParts(parser, out);
+                    if (mimeType != null) {
+                        return mimeType;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String readParts(JsonParser parser, OutputStream out) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("inlineData".equals(field) && value == JsonToken.START_OBJECT) {
+                    String mimeType = readInlineData(parser, out);
+                    if (mimeType != null) {
+                        return mimeType;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String readInlineData(JsonParser parser, OutputStream out) throws IOException {
+        String mimeType = null;
+        boolean found = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("data".equals(field)) {
+                parser.readBinaryValue(Base64Variants.MIME_NO_LINEFEEDS, out);
+                found = true;
+            } else if ("mimeType".equals(field)) {
+                mimeType = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        out.flush();
+        return mimeType != null ? mimeType : DEFAULT_MIME_TYPE;
+    }
 }
@@ -0,0 +1,175 @@
+package com.zpcs.client;
+
+import com.zpcs.exception.GeminiApiException;
+import com.zpcs.model.AiModelRequest;
+import com.zpcs.model.AiModelResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorator that cuts tail latency by hedging slow calls.
+ * If the primary call has not finished after the configured latency
+ * percentile, an identical second call is fired; the first successful
+ * response wins and the other call is cancelled, or its image released if
+ * it finished anyway.
+ * A token bucket refilled by every request caps hedges at a fixed fraction
+ * of traffic so a slow upstream is never hit with double load.
+ */
+@Slf4j
+public class HedgingAiModelClient implements AiModelClient {
+
+    private static final long TOKEN = 1000;
+
+    private final AiModelClient delegate;
+    private final ExecutorService callExecutor;
+    private final LatencyHistogram histogram;
+    private final double percentile;
+    private final long minDelayMs;
+    private final long minSamples;
+    private final long tokensPerRequest;
+    private final long maxTokens;
+    private final AtomicLong tokens = new AtomicLong();
+
+    private final Counter hedgesFired;
+    private final Counter hedgesWon;
+    private final Counter hedgesDenied;
+
+    public HedgingAiModelClient(AiModelClient delegate, ExecutorService callExecutor, double percentile,
+            long minDelayMs, long minSamples, double maxHedgeRatio, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.callExecutor = callExecutor;
+        this.histogram = new LatencyHistogram(10_000);
+        this.percentile = percentile;
+        this.minDelayMs = minDelayMs;
+        this.minSamples = minSamples;
+        this.tokensPerRequest = Math.round(maxHedgeRatio * TOKEN);
+        this.maxTokens = 10 * TOKEN;
+
+        this.hedgesFired = meterRegistry.counter("zpcs.model.hedge.fired");
+        this.hedgesWon = meterRegistry.counter("zpcs.model.hedge.won");
+        this.hedgesDenied = meterRegistry.counter("zpcs.model.hedge.denied");
+        Gauge.builder("zpcs.model.hedge.delay", this, HedgingAiModelClient::hedgeDelayMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public AiModelResponse generateImage(AiModelRequest request) {
+        refillBudget();
+        long delayMs = hedgeDelayMillis();
+
+        CompletionService<AiModelResponse> completion = new ExecutorCompletionService<>(callExecutor);
+        Future<AiModelResponse> primary = completion.submit(() -> timedCall(request));
+        Future<AiModelResponse> hedge = null;
+        Future<AiModelResponse> winner = primary;
+        try {
+            if (delayMs < 0) {
+                return result(primary);
+            }
+            Future<AiModelResponse> done = completion.poll(delayMs, TimeUnit.MILLISECONDS);
+            if (done != null) {
+                return result(done);
+            }
+            if (!tryConsumeBudget()) {
+                hedgesDenied.increment();
+                return result(primary);
+            }
+
+            log.debug("Primary model call exceeded {} ms, hedging", delayMs);
+            hedgesFired.increment();
+            hedge = completion.submit(() -> timedCall(request));
+
+            RuntimeException firstFailure = null;
+            for (int i = 0; i < 2; i++) {
+                Future<AiModelResponse> finished = completion.take();
+                try {
+                    AiModelResponse response = result(finished);
+                    winner = finished;
+                    if (finished == hedge) {
+                        hedgesWon.increment();
+                    }
+                    return response;
+                } catch (RuntimeException e) {
+                    firstFailure = firstFailure == null ? e : firstFailure;
+                }
+            }
+            throw firstFailure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeminiApiException("Interrupted while waiting for model response", e);
+        } finally {
+            discard(primary, winner);
+            if (hedge != null) {
+                discard(hedge, winner);
+            }
+        }
+    }
+
+    /**
+     * Current hedge delay, or -1 while there are too few samples to trust the percentile.
+     */
+    long hedgeDelayMillis() {
+        if (histogram.count() < minSamples) {
+            return -1;
+        }
+        return Math.max(minDelayMs, histogram.percentile(percentile));
+    }
+
+    /**
+     * Records every call's duration, failed and cancelled ones included, so
+     * the slow calls that end badly still pull the percentile up.
+     */
+    private AiModelResponse timedCall(AiModelRequest request) {
+        long start = System.nanoTime();
+        try {
+            return delegate.generateImage(request);
+        } finally {
+            histogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private void refillBudget() {
+        tokens.getAndUpdate(t -> Math.min(maxTokens, t + tokensPerRequest));
+    }
+
+    private boolean tryConsumeBudget() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    private static void discard(Future<AiModelResponse> future, Future<AiModelResponse> winner) {
+        if (future == winner || future.cancel(true)) {
+            return;
+        }
+        if (future.state() == Future.State.SUCCESS) {
+            future.resultNow().getImageData().release();
+        }
+    }
+
+    private static AiModelResponse result(Future<AiModelResponse> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new GeminiApiException("Model call failed: " + e.getCause(), 0, true, e.getCause());
+        }
+    }
+}
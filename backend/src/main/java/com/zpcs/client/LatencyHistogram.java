@@ -0,0 +1,90 @@
+package com.zpcs.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock-free, log-bucketed latency histogram used to derive live percentiles.
+ * Buckets grow by 15% so percentiles are accurate to within one bucket.
+ * Once {@code decayEvery} samples have been recorded all counts are halved,
+ * letting the distribution follow the upstream as its latency drifts.
+ */
+public class LatencyHistogram {
+
+    private static final double GROWTH = 1.15;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+    private static final int BUCKETS = 100;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final ReentrantLock decayLock = new ReentrantLock();
+    private final long decayEvery;
+
+    public LatencyHistogram(long decayEvery) {
+        this.decayEvery = decayEvery;
+    }
+
+    public void record(long millis) {
+        counts.incrementAndGet(bucketOf(millis));
+        if (total.incrementAndGet() >= decayEvery) {
+            decay();
+        }
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0..1),
+     * or -1 if nothing has been recorded yet.
+     */
+    public long percentile(double percentile) {
+        long samples = total.get();
+        if (samples <= 0) {
+            return -1;
+        }
+        long target = (long) Math.ceil(percentile * samples);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private void decay() {
+        // Only one recorder decays; the others keep recording instead of queueing up
+        if (!decayLock.tryLock()) {
+            return;
+        }
+        try {
+            if (total.get() < decayEvery) {
+                return;
+            }
+            long sum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                long halved = counts.get(i) / 2;
+                counts.set(i, halved);
+                sum += halved;
+            }
+            total.set(sum);
+        } finally {
+            decayLock.unlock();
+        }
+    }
+
+    private static int bucketOf(long millis) {
+        if (millis <= 1) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, (int) (Math.log(millis) / LOG_GROWTH));
+    }
+
+    private static long upperBound(int bucket) {
+        return (long) Math.ceil(Math.pow(GROWTH, bucket + 1));
+    }
+}
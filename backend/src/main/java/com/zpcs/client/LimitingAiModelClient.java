@@ -0,0 +1,88 @@
+package com.zpcs.client;
+
+import com.zpcs.exception.CapacityExceededException;
+import com.zpcs.exception.GeminiApiException;
+import com.zpcs.exception.QuotaExceededException;
+import com.zpcs.model.AiModelRequest;
+import com.zpcs.model.AiModelResponse;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decorator running every upstream call under an {@link AdaptiveConcurrencyLimiter}.
+ * Callers that cannot get a permit in time are rejected with a 429 carrying
+ * the limiter's estimate of when capacity frees up.
+ * 429s and upstream timeouts lower the limit; other failures only return
+ * the permit. Latency is tracked per output size and edit-or-not, since a
+ * 4K image is expected to take longer than a 1K one.
+ */
+public class LimitingAiModelClient implements AiModelClient {
+
+    private final AiModelClient delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public LimitingAiModelClient(AiModelClient delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public AiModelResponse generateImage(AiModelRequest request) {
+        try {
+            if (!limiter.acquire()) {
+                throw new CapacityExceededException(limiter.retryAfterSeconds());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeminiApiException("Interrupted while waiting for model capacity", e);
+        }
+
+        long start = System.nanoTime();
+        boolean settled = false;
+        try {
+            AiModelResponse response = delegate.generateImage(request);
+            limiter.onSuccess(requestClass(request), (System.nanoTime() - start) / 1_000_000);
+            settled = true;
+            return response;
+        } catch (QuotaExceededException e) {
+            limiter.onThrottled();
+            settled = true;
+            throw e;
+        } catch (GeminiApiException e) {
+            if (isTimeout(e)) {
+                limiter.onTimeout();
+                settled = true;
+            }
+            throw e;
+        } finally {
+            // Anything else, Errors included, gives the permit back without a signal
+            if (!settled) {
+                limiter.onIgnored();
+            }
+        }
+    }
+
+    private static String requestClass(AiModelRequest request) {
+        return request.getWidth() + "x" + request.getHeight() + (request.getSourceImage() != null ? "-edit" : "");
+    }
+
+    /**
+     * A gateway or request timeout from the upstream, or a socket or HTTP
+     * timeout on the way there. Interruptions are not counted: hedging and
+     * the caller's deadline cancel calls that are merely slow.
+     */
+    private static boolean isTimeout(GeminiApiException e) {
+        if (e.getUpstreamStatus() == 408 || e.getUpstreamStatus() == 504) {
+            return true;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException || cause instanceof HttpTimeoutException
+                    || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
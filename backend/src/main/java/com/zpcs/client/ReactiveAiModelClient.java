@@ -0,0 +1,13 @@
+package com.zpcs.client;
+
+import com.zpcs.model.AiModelRequest;
+import com.zpcs.model.AiModelResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link AiModelClient}.
+ * No thread is held while the model call is in flight.
+ */
+public interface ReactiveAiModelClient {
+    Mono<AiModelResponse> generateImage(AiModelRequest request);
+}
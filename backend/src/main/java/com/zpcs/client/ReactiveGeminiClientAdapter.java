@@ -0,0 +1,158 @@
+package com.zpcs.client;
+
+import com.zpcs.buffer.BufferPool;
+import com.zpcs.buffer.PooledBufferChannel;
+import com.zpcs.config.GeminiProperties;
+import com.zpcs.exception.GeminiApiException;
+import com.zpcs.exception.ZpcsException;
+import com.zpcs.model.AiModelRequest;
+import com.zpcs.model.AiModelResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adapter Pattern: non-blocking Gemini adapter speaking the REST API directly
+ * over a shared Reactor Netty connection pool.
+ * The SDK's async API wraps its blocking HTTP client, so it cannot free
+ * threads while a call is in flight; this adapter can.
+ * Response bodies are decoded on the event loop chunk by chunk as they
+ * arrive, so no thread waits on the network and the Base64 text never sits
+ * on the heap whole.
+ */
+@Service("upstreamReactiveAiModelClient")
+@Profile("!stub")
+@Slf4j
+public class ReactiveGeminiClientAdapter implements ReactiveAiModelClient {
+
+    private static final String BASE_URL = "https://generativelanguage.googleapis.com/v1beta";
+    private static final int MAX_RESPONSE_BYTES = 64 * 1024 * 1024;
+    private static final int INITIAL_IMAGE_BYTES = 1024 * 1024;
+    private static final Duration MAX_IDLE_TIME = Duration.ofSeconds(60);
+
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+    private final BufferPool bufferPool;
+
+    public ReactiveGeminiClientAdapter(WebClient.Builder webClientBuilder, GeminiProperties properties,
+            BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        this.connectionProvider = ConnectionProvider.builder("gemini")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireTimeout(Duration.ofSeconds(properties.getTimeoutSeconds()))
+                .maxIdleTime(MAX_IDLE_TIME)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .responseTimeout(Duration.ofSeconds(properties.getTimeoutSeconds()));
+        this.webClient = webClientBuilder.clone()
+                .baseUrl(BASE_URL)
+                .defaultHeader("x-goog-api-key", properties.getApiKey())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_RESPONSE_BYTES))
+                .build();
+    }
+
+    @Override
+    public Mono<AiModelResponse> generateImage(AiModelRequest request) {
+        return Mono.defer(() -> {
+            long start = System.currentTimeMillis();
+            Flux<DataBuffer> body = webClient.post()
+                    .uri("/models/{model}:generateContent", request.getModel())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(requestBody(request))
+                    .retrieve()
+                    .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(String.class)
+                            .defaultIfEmpty("")
+                            .map(text -> GeminiErrors.translate(response.statusCode().value(), text, null)))
+                    .bodyToFlux(DataBuffer.class);
+            return toResponse(body, start);
+        }).onErrorMap(e -> !(e instanceof ZpcsException), e -> {
+            log.error("Gemini API call failed", e);
+            return new GeminiApiException("Gemini API call failed: " + (e.getMessage() != null ? e.getMessage() : ""),
+                    0, true, e);
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionProvider.dispose();
+    }
+
+    private static Map<String, Object> requestBody(AiModelRequest request) {
+        return Map.of(
+                "contents", List.of(Map.of(
+                        "role", "user",
+                        "parts", List.of(Map.of("text", request.getPrompt())))),
+                "generationConfig", Map.of(
+                        "responseModalities", List.of("TEXT", "IMAGE")));
+    }
+
+    /**
+     * Decodes the body on whichever thread delivers it. Cancellation can
+     * race a chunk being written, so the channel is only touched under a lock.
+     */
+    private Mono<AiModelResponse> toResponse(Flux<DataBuffer> body, long start) {
+        return Mono.defer(() -> {
+            PooledBufferChannel imageData = bufferPool.newChannel(INITIAL_IMAGE_BYTES);
+            GeminiResponseDecoder decoder = new GeminiResponseDecoder(imageData);
+            ReentrantLock lock = new ReentrantLock();
+            return body
+                    .doOnNext(buffer -> {
+                        lock.lock();
+                        try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                            while (chunks.hasNext()) {
+                                decoder.feed(chunks.next());
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                            lock.unlock();
+                        }
+                    })
+                    .then(Mono.fromCallable(() -> {
+                        lock.lock();
+                        try {
+                            String mimeType = decoder.finish();
+                            return AiModelResponse.builder()
+                                    .imageData(imageData.finish())
+                                    .mimeType(mimeType)
+                                    .processingTimeMs(System.currentTimeMillis() - start)
+                                    .build();
+                        } finally {
+                            lock.unlock();
+                        }
+                    }))
+                    .doFinally(signal -> {
+                        // No-op once finished; recycles the slab on error or cancel
+                        lock.lock();
+                        try {
+                            imageData.discard();
+                        } finally {
+                            lock.unlock();
+                        }
+                    })
+                    .onErrorMap(IllegalStateException.class,
+                            e -> new GeminiApiException("No image returned from Gemini API", e));
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package com.zpcs.client;
+
+import com.zpcs.exception.CapacityExceededException;
+import com.zpcs.exception.GeminiApiException;
+import com.zpcs.exception.UpstreamUnavailableException;
+import com.zpcs.exception.ZpcsException;
+import com.zpcs.model.AiModelRequest;
+import com.zpcs.model.AiModelResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decorator adding a per-call deadline, jittered exponential retries and a
+ * circuit breaker around another {@link AiModelClient}.
+ * Only failures flagged retryable by the adapter (5xx, timeouts, transport
+ * errors) are retried; those and any unclassified exception count against
+ * the circuit. Rejections by local admission control count as neither
+ * success nor failure.
+ */
+@Slf4j
+public class ResilientAiModelClient implements AiModelClient {
+
+    private final AiModelClient delegate;
+    private final ExecutorService callExecutor;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration deadline;
+    private final int maxRetries;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public ResilientAiModelClient(AiModelClient delegate, ExecutorService callExecutor,
+            CircuitBreaker circuitBreaker, Duration deadline, int maxRetries,
+            long initialBackoffMs, long maxBackoffMs) {
+        this.delegate = delegate;
+        this.callExecutor = callExecutor;
+        this.circuitBreaker = circuitBreaker;
+        this.deadline = deadline;
+        this.maxRetries = maxRetries;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    @Override
+    public AiModelResponse generateImage(AiModelRequest request) {
+        long deadlineAt = System.nanoTime() + deadline.toNanos();
+        int attempt = 0;
+
+        while (true) {
+            if (!circuitBreaker.tryAcquire()) {
+                throw new UpstreamUnavailableException(circuitBreaker.retryAfterSeconds());
+            }
+            try {
+                AiModelResponse response = callBefore(request, deadlineAt);
+                circuitBreaker.onSuccess();
+                return response;
+            } catch (CapacityExceededException e) {
+                // Rejected locally before reaching the upstream; neither outcome applies
+                circuitBreaker.release();
+                throw e;
+            } catch (GeminiApiException e) {
+                if (!e.isRetryable()) {
+                    // The upstream answered; a client-side error says nothing about its health.
+                    circuitBreaker.onSuccess();
+                    throw e;
+                }
+                circuitBreaker.onFailure();
+
+                long backoffMs = backoffMillis(attempt);
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineAt - System.nanoTime());
+                if (attempt >= maxRetries || backoffMs >= remainingMs) {
+                    throw e;
+                }
+                attempt++;
+                log.warn("Model call failed (status={}), retry {}/{} in {} ms: {}",
+                        e.getUpstreamStatus(), attempt, maxRetries, backoffMs, e.getMessage());
+                sleep(backoffMs);
+            } catch (ZpcsException e) {
+                circuitBreaker.onSuccess();
+                throw e;
+            } catch (RuntimeException | Error e) {
+                // Anything unclassified counts against the upstream, so a half-open probe always settles
+                circuitBreaker.onFailure();
+                throw e;
+            }
+        }
+    }
+
+    private AiModelResponse callBefore(AiModelRequest request, long deadlineAt) {
+        long remainingNanos = deadlineAt - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw deadlineExceeded(null);
+        }
+
+        Future<AiModelResponse> future = callExecutor.submit(() -> delegate.generateImage(request));
+        try {
+            return future.get(remainingNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw deadlineExceeded(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new GeminiApiException("Model call failed: " + e.getCause(), 0, true, e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new GeminiApiException("Interrupted while waiting for model response", e);
+        }
+    }
+
+    private GeminiApiException deadlineExceeded(Throwable cause) {
+        return new GeminiApiException("Model call exceeded its deadline of " + deadline.toSeconds() + " seconds",
+                0, true, cause);
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half the capped delay is fixed,
+     * the other half random, so concurrent retries spread out.
+     */
+    private long backoffMillis(int attempt) {
+        long cap = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt, 20));
+        long half = cap / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeminiApiException("Interrupted during retry backoff", e);
+        }
+    }
+}
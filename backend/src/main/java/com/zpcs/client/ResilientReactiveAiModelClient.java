@@ -0,0 +1,76 @@
+package com.zpcs.client;
+
+import com.zpcs.exception.CapacityExceededException;
+import com.zpcs.exception.GeminiApiException;
+import com.zpcs.exception.UpstreamUnavailableException;
+import com.zpcs.exception.ZpcsException;
+import com.zpcs.model.AiModelRequest;
+import com.zpcs.model.AiModelResponse;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Reactive mirror of {@link ResilientAiModelClient}: overall deadline,
+ * jittered exponential retries of retryable failures and the shared
+ * circuit breaker, expressed as Reactor operators.
+ */
+public class ResilientReactiveAiModelClient implements ReactiveAiModelClient {
+
+    private final ReactiveAiModelClient delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration deadline;
+    private final int maxRetries;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public ResilientReactiveAiModelClient(ReactiveAiModelClient delegate, CircuitBreaker circuitBreaker,
+            Duration deadline, int maxRetries, long initialBackoffMs, long maxBackoffMs) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.deadline = deadline;
+        this.maxRetries = maxRetries;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+    }
+
+    @Override
+    public Mono<AiModelResponse> generateImage(AiModelRequest request) {
+        return Mono.defer(() -> attempt(request))
+                .retryWhen(Retry.backoff(maxRetries, initialBackoff)
+                        .maxBackoff(maxBackoff)
+                        .jitter(0.5)
+                        .filter(ResilientReactiveAiModelClient::isRetryable)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .timeout(deadline, Mono.error(() -> {
+                    // The timeout cancels the attempt, which only releases its permit; the slowness still counts
+                    circuitBreaker.onFailure();
+                    return new GeminiApiException(
+                            "Model call exceeded its deadline of " + deadline.toSeconds() + " seconds", 0, true, null);
+                }));
+    }
+
+    private Mono<AiModelResponse> attempt(AiModelRequest request) {
+        if (!circuitBreaker.tryAcquire()) {
+            return Mono.error(new UpstreamUnavailableException(circuitBreaker.retryAfterSeconds()));
+        }
+        return delegate.generateImage(request)
+                .doOnSuccess(response -> circuitBreaker.onSuccess())
+                .doOnError(e -> {
+                    if (e instanceof CapacityExceededException) {
+                        circuitBreaker.release();
+                    } else if (e instanceof ZpcsException && !isRetryable(e)) {
+                        circuitBreaker.onSuccess();
+                    } else {
+                        circuitBreaker.onFailure();
+                    }
+                })
+                // A cancelled call, usually a client that went away, says nothing about the upstream
+                .doOnCancel(circuitBreaker::release);
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        return e instanceof GeminiApiException gae && gae.isRetryable();
+    }
+}
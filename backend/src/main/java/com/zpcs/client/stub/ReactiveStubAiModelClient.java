@@ -0,0 +1,40 @@
+package com.zpcs.client.stub;
+
+import com.zpcs.client.ReactiveAiModelClient;
+import com.zpcs.model.AiModelRequest;
+import com.zpcs.model.AiModelResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking counterpart of {@link StubAiModelClient}: waits on a timer
+ * instead of a thread.
+ */
+@Component("upstreamReactiveAiModelClient")
+@Profile("stub")
+@RequiredArgsConstructor
+public class ReactiveStubAiModelClient implements ReactiveAiModelClient {
+
+    private final StubModelBackend backend;
+
+    @Override
+    public Mono<AiModelResponse> generateImage(AiModelRequest request) {
+        return Mono.defer(() -> {
+            StubModelBackend.Outcome outcome = backend.nextOutcome();
+            return Mono.delay(Duration.ofMillis(outcome.latencyMs()))
+                    // The first call per size renders a PNG; keep that off the timer thread
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(tick -> {
+                        if (outcome.failure() != null) {
+                            throw outcome.failure();
+                        }
+                        return backend.respond(request, outcome.latencyMs());
+                    });
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.zpcs.client.stub;
+
+import com.zpcs.client.AiModelClient;
+import com.zpcs.exception.GeminiApiException;
+import com.zpcs.model.AiModelRequest;
+import com.zpcs.model.AiModelResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stand-in for the Gemini adapter under the {@code stub} profile, for load
+ * tests and capacity planning. The full decorator chain still wraps it.
+ */
+@Component("upstreamAiModelClient")
+@Profile("stub")
+@RequiredArgsConstructor
+public class StubAiModelClient implements AiModelClient {
+
+    private final StubModelBackend backend;
+
+    @Override
+    public AiModelResponse generateImage(AiModelRequest request) {
+        StubModelBackend.Outcome outcome = backend.nextOutcome();
+        try {
+            Thread.sleep(outcome.latencyMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeminiApiException("Interrupted during stub model call", e);
+        }
+        if (outcome.failure() != null) {
+            throw outcome.failure();
+        }
+        return backend.respond(request, outcome.latencyMs());
+    }
+}
@@ -0,0 +1,169 @@
+package com.zpcs.client.stub;
+
+import com.zpcs.buffer.PooledBuffer;
+import com.zpcs.config.StubModelProperties;
+import com.zpcs.exception.GeminiApiException;
+import com.zpcs.exception.QuotaExceededException;
+import com.zpcs.exception.ZpcsException;
+import com.zpcs.model.AiModelRequest;
+import com.zpcs.model.AiModelResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared behaviour of the stub model clients: per-call latency and failure
+ * decisions drawn from a seeded sequence, and procedurally rendered PNGs of
+ * the requested size. Images are rendered once per size and variant, so
+ * load tests measure this service rather than PNG encoding.
+ */
+@Component
+@Profile("stub")
+@Slf4j
+public class StubModelBackend {
+
+    private static final int DEFAULT_SIZE = 1024;
+
+    /** What a call will do: wait {@code latencyMs}, then fail or respond. */
+    record Outcome(long latencyMs, ZpcsException failure) {
+    }
+
+    private final StubModelProperties properties;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<String, byte[]> images = new ConcurrentHashMap<>();
+    private final long[] replayBounds;
+    private final long[] replayCumulative;
+
+    public StubModelBackend(StubModelProperties properties) {
+        this.properties = properties;
+        if (properties.getLatencyMode() == StubModelProperties.LatencyMode.REPLAY) {
+            List<long[]> buckets = readHistogram(properties.getReplayHistogram());
+            replayBounds = new long[buckets.size()];
+            replayCumulative = new long[buckets.size()];
+            long total = 0;
+            for (int i = 0; i < buckets.size(); i++) {
+                replayBounds[i] = buckets.get(i)[0];
+                total += buckets.get(i)[1];
+                replayCumulative[i] = total;
+            }
+            if (total == 0) {
+                throw new IllegalStateException("Replay histogram has no samples: " + properties.getReplayHistogram());
+            }
+        } else {
+            replayBounds = null;
+            replayCumulative = null;
+        }
+        log.warn("Stub model backend active: latency={}, errorRate={}, throttleRate={}",
+                properties.getLatencyMode(), properties.getErrorRate(), properties.getThrottleRate());
+    }
+
+    Outcome nextOutcome() {
+        SplittableRandom random = new SplittableRandom(properties.getSeed() * 0x9E3779B97F4A7C15L
+                + sequence.getAndIncrement());
+        long latencyMs = sampleLatency(random);
+        double roll = random.nextDouble();
+        ZpcsException failure = null;
+        if (roll < properties.getThrottleRate()) {
+            failure = new QuotaExceededException(properties.getThrottleRetryAfterSeconds());
+        } else if (roll < properties.getThrottleRate() + properties.getErrorRate()) {
+            failure = new GeminiApiException("Injected stub failure", 503, true, null);
+        }
+        return new Outcome(latencyMs, failure);
+    }
+
+    AiModelResponse respond(AiModelRequest request, long latencyMs) {
+        int width = request.getWidth() > 0 ? request.getWidth() : DEFAULT_SIZE;
+        int height = request.getHeight() > 0 ? request.getHeight() : DEFAULT_SIZE;
+        int variant = Math.floorMod(Objects.hashCode(request.getPrompt()), properties.getImageVariants());
+        byte[] png = images.computeIfAbsent(width + "x" + height + "#" + variant,
+                key -> render(width, height, variant));
+        return AiModelResponse.builder()
+                .imageData(PooledBuffer.wrap(png))
+                .mimeType("image/png")
+                .processingTimeMs(latencyMs)
+                .build();
+    }
+
+    private long sampleLatency(SplittableRandom random) {
+        return switch (properties.getLatencyMode()) {
+            case FIXED -> properties.getFixedLatencyMs();
+            case LOGNORMAL -> Math.round(Math.exp(Math.log(properties.getLognormalMedianMs())
+                    + properties.getLognormalSigma() * random.nextGaussian()));
+            case REPLAY -> {
+                long pick = random.nextLong(replayCumulative[replayCumulative.length - 1]);
+                int bucket = 0;
+                while (replayCumulative[bucket] <= pick) {
+                    bucket++;
+                }
+                long lower = bucket == 0 ? 0 : replayBounds[bucket - 1];
+                yield lower + random.nextLong(Math.max(1, replayBounds[bucket] - lower));
+            }
+        };
+    }
+
+    private static byte[] render(int width, int height, int variant) {
+        SplittableRandom random = new SplittableRandom(variant);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setPaint(new GradientPaint(0, 0, randomColor(random), width, height, randomColor(random)));
+            g.fillRect(0, 0, width, height);
+            for (int i = 0; i < 12; i++) {
+                g.setColor(randomColor(random));
+                int size = random.nextInt(Math.max(1, Math.min(width, height) / 3)) + 1;
+                g.fillOval(random.nextInt(width), random.nextInt(height), size, size);
+            }
+        } finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static Color randomColor(SplittableRandom random) {
+        return new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+    }
+
+    private static List<long[]> readHistogram(String path) {
+        if (path == null || path.isBlank()) {
+            throw new IllegalStateException("stub-model.replay-histogram is required for REPLAY latency");
+        }
+        List<long[]> buckets = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(Path.of(path))) {
+                String trimmed = line.strip();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = trimmed.split("[\\s,]+");
+                buckets.add(new long[] { Long.parseLong(fields[0]), Long.parseLong(fields[1]) });
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Could not read replay histogram " + path, e);
+        }
+        return buckets;
+    }
+}
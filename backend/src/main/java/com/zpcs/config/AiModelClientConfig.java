@@ -0,0 +1,112 @@
+package com.zpcs.config;
+
+import com.zpcs.client.AdaptiveConcurrencyLimiter;
+import com.zpcs.client.AiModelClient;
+import com.zpcs.client.BulkheadAiModelClient;
+import com.zpcs.client.CircuitBreaker;
+import com.zpcs.client.HedgingAiModelClient;
+import com.zpcs.client.LimitingAiModelClient;
+import com.zpcs.client.ReactiveAiModelClient;
+import com.zpcs.client.ResilientReactiveAiModelClient;
+import com.zpcs.client.ResilientAiModelClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Assembles the decorator chain strategies receive as their {@link AiModelClient}.
+ * The raw upstream stays a bean of its own, named {@code upstreamAiModelClient}:
+ * the Gemini adapter by default, the stub backend under the {@code stub} profile.
+ * The composed client is primary.
+ * Order, outermost first: bulkhead, deadline/retry/circuit breaker, hedging,
+ * then the adaptive limiter so every real upstream call holds a permit.
+ * The limiter's rejections pass through the circuit breaker as neutral, since
+ * no upstream call was made.
+ * The reactive client shares the circuit breaker so both paths see one upstream state.
+ */
+@Configuration
+public class AiModelClientConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService modelCallExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("model-call-", 0).factory());
+        }
+        return Executors.newCachedThreadPool(Thread.ofPlatform().name("model-call-", 0).daemon(true).factory());
+    }
+
+    @Bean
+    public CircuitBreaker modelCircuitBreaker(ResilienceProperties resilience) {
+        return new CircuitBreaker("gemini",
+                resilience.getFailureThreshold(),
+                resilience.getOpenStateSeconds() * 1000L,
+                resilience.getHalfOpenMaxCalls());
+    }
+
+    @Bean
+    @Primary
+    public AiModelClient aiModelClient(@Qualifier("upstreamAiModelClient") AiModelClient upstream,
+            ExecutorService modelCallExecutor,
+            CircuitBreaker modelCircuitBreaker,
+            GeminiProperties gemini,
+            ResilienceProperties resilience,
+            HedgingProperties hedging,
+            BulkheadProperties bulkhead,
+            LimiterProperties limiter,
+            MeterRegistry meterRegistry) {
+        AiModelClient client = upstream;
+        if (limiter.isEnabled()) {
+            client = new LimitingAiModelClient(client, new AdaptiveConcurrencyLimiter(
+                    limiter.getInitialLimit(),
+                    limiter.getMinLimit(),
+                    limiter.getMaxLimit(),
+                    limiter.getBackoffRatio(),
+                    limiter.getLatencyTolerance(),
+                    limiter.getMaxQueue(),
+                    limiter.getMaxWaitMs(),
+                    meterRegistry));
+        }
+        if (hedging.isEnabled()) {
+            client = new HedgingAiModelClient(client, modelCallExecutor,
+                    hedging.getPercentile(),
+                    hedging.getMinDelayMs(),
+                    hedging.getMinSamples(),
+                    hedging.getMaxHedgeRatio(),
+                    meterRegistry);
+        }
+        client = new ResilientAiModelClient(client, modelCallExecutor, modelCircuitBreaker,
+                Duration.ofSeconds(gemini.getTimeoutSeconds()),
+                gemini.getMaxRetries(),
+                resilience.getInitialBackoffMs(),
+                resilience.getMaxBackoffMs());
+        if (bulkhead.isEnabled()) {
+            client = new BulkheadAiModelClient(client,
+                    bulkhead.getMaxConcurrentCalls(),
+                    bulkhead.getMaxWaitMs(),
+                    meterRegistry);
+        }
+        return client;
+    }
+
+    @Bean
+    @Primary
+    public ReactiveAiModelClient reactiveAiModelClient(
+            @Qualifier("upstreamReactiveAiModelClient") ReactiveAiModelClient upstream,
+            CircuitBreaker modelCircuitBreaker,
+            GeminiProperties gemini,
+            ResilienceProperties resilience) {
+        return new ResilientReactiveAiModelClient(upstream, modelCircuitBreaker,
+                Duration.ofSeconds(gemini.getTimeoutSeconds()),
+                gemini.getMaxRetries(),
+                resilience.getInitialBackoffMs(),
+                resilience.getMaxBackoffMs());
+    }
+}
@@ -1,30 +1,97 @@
 package com.zpcs.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 @RequiredArgsConstructor
-public class AsyncConfig {
+public class AsyncConfig implements AsyncConfigurer {
 
     private final AsyncProperties properties;
+    private final Environment environment;
 
+    /**
+     * With spring.threads.virtual.enabled=true every task gets its own virtual
+     * thread and the pool settings give way to a concurrency limit.
+     * Either way a saturated executor rejects the task instead of running it
+     * on, or blocking, the submitting request thread; callers turn that into a 429.
+     */
     @Bean("generationExecutor")
     public Executor generationExecutor() {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            RejectingAsyncTaskExecutor executor = new RejectingAsyncTaskExecutor(properties.getThreadNamePrefix(),
+                    properties.getVirtualConcurrencyLimit());
+            executor.setVirtualThreads(true);
+            executor.setTaskTerminationTimeout(properties.getTerminationTimeoutMs());
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(properties.getCorePoolSize());
         executor.setMaxPoolSize(properties.getMaxPoolSize());
         executor.setQueueCapacity(properties.getQueueCapacity());
         executor.setThreadNamePrefix(properties.getThreadNamePrefix());
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
         executor.initialize();
         return executor;
     }
+
+    /**
+     * {@code @Async} listeners run on an executor of their own, so a burst of
+     * generations can neither starve nor reject them.
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("event-");
+        executor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+        return executor;
+    }
+
+    /**
+     * Virtual-thread executor whose concurrency limit rejects at once;
+     * {@link SimpleAsyncTaskExecutor#setConcurrencyLimit} would block the submitter.
+     */
+    private static final class RejectingAsyncTaskExecutor extends SimpleAsyncTaskExecutor {
+
+        private final Semaphore permits;
+        private final int limit;
+
+        RejectingAsyncTaskExecutor(String threadNamePrefix, int limit) {
+            super(threadNamePrefix);
+            this.permits = new Semaphore(limit);
+            this.limit = limit;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (!permits.tryAcquire()) {
+                throw new TaskRejectedException("Executor is at its concurrency limit of " + limit);
+            }
+            try {
+                super.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+    }
 }
@@ -25,4 +25,12 @@ public class AsyncProperties {
 
     @NotBlank
     private String threadNamePrefix;
+
+    @Min(1)
+    @Max(100000)
+    private int virtualConcurrencyLimit = 1000;
+
+    @Min(0)
+    @Max(600000)
+    private long terminationTimeoutMs = 30000;
 }
@@ -0,0 +1,25 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "batch")
+@Validated
+@Data
+public class BatchProperties {
+    @Min(1)
+    @Max(1000)
+    private int maxVariants = 64;
+
+    /** Variants of one batch generating at the same time. */
+    @Min(1)
+    @Max(100)
+    private int maxConcurrency = 4;
+
+    @Min(1)
+    @Max(3600)
+    private int deadlineSeconds = 600;
+}
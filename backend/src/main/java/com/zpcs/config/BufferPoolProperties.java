@@ -0,0 +1,27 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Size classes and idle budget of the direct image buffer pool.
+ */
+@ConfigurationProperties(prefix = "buffer-pool")
+@Validated
+@Data
+public class BufferPoolProperties {
+    @Min(4096)
+    @Max(1073741824)
+    private int minClassBytes = 65536;
+
+    @Min(4096)
+    @Max(1073741824)
+    private int maxClassBytes = 33554432;
+
+    /** Direct memory kept for reuse across all classes. */
+    @Min(0)
+    private long maxIdleBytes = 268435456;
+}
@@ -0,0 +1,25 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Bound on concurrent callers of the model client chain.
+ */
+@ConfigurationProperties(prefix = "gemini.bulkhead")
+@Validated
+@Data
+public class BulkheadProperties {
+    private boolean enabled = true;
+
+    @Min(1)
+    @Max(10000)
+    private int maxConcurrentCalls = 64;
+
+    @Min(0)
+    @Max(600000)
+    private long maxWaitMs = 30000;
+}
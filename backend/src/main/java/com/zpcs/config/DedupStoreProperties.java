@@ -0,0 +1,26 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Content-addressed storage, used when storage.backend is DEDUP.
+ */
+@ConfigurationProperties(prefix = "dedup-store")
+@Validated
+@Data
+public class DedupStoreProperties {
+
+    @NotBlank
+    private String directory = "./data/dedup";
+
+    /** Sync the index log before a save or delete returns; also applied to the blob files. */
+    private boolean fsync = true;
+
+    /** Index log entries beyond the live mappings at which startup rewrites the log compacted. */
+    @Min(0)
+    private int compactAfterDeadEntries = 100000;
+}
@@ -0,0 +1,48 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Downscaled renditions of generated images for the gallery.
+ */
+@ConfigurationProperties(prefix = "derivatives")
+@Validated
+@Data
+public class DerivativeProperties {
+
+    /** Render renditions as soon as an image is generated; otherwise only on first request. */
+    private boolean eager = true;
+
+    /** Renderers; each holds a decoded full-resolution image while it works. */
+    @Min(1)
+    @Max(64)
+    private int threads = 2;
+
+    /** Eager renders waiting beyond this are dropped and left to the first request. */
+    @Min(1)
+    @Max(100000)
+    private int queueCapacity = 200;
+
+    @Min(16)
+    @Max(4096)
+    private int thumbnailEdge = 256;
+
+    @Min(16)
+    @Max(8192)
+    private int previewEdge = 1024;
+
+    @DecimalMin("0.1")
+    @DecimalMax("1.0")
+    private float jpegQuality = 0.85f;
+
+    /** How long a request waits for a rendition rendered on demand. */
+    @Min(100)
+    @Max(600000)
+    private long renderTimeoutMs = 15000;
+}
@@ -24,4 +24,14 @@ public class GeminiProperties {
     @Min(0)
     @Max(5)
     private int maxRetries;
+
+    @Min(1)
+    @Max(256)
+    private int maxConnections = 32;
+
+    private boolean warmUpOnStartup = true;
+
+    @Min(1)
+    @Max(3600)
+    private int healthCacheSeconds = 30;
 }
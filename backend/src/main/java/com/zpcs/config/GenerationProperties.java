@@ -0,0 +1,28 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "generation")
+@Validated
+@Data
+public class GenerationProperties {
+
+    public enum Pipeline {
+        BLOCKING, REACTIVE
+    }
+
+    /** Selects the generation controllers; see ImageGenerationController. */
+    private Pipeline pipeline = Pipeline.BLOCKING;
+
+    /** Share one model call between identical in-flight requests. */
+    private boolean coalesce = true;
+
+    /** Longest a coalesced request waits for the leader; keep above the model deadline. */
+    @Min(1)
+    @Max(3600)
+    private int coalesceWaitSeconds = 300;
+}
@@ -0,0 +1,35 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Hedged-request tuning. Disabled by default.
+ */
+@ConfigurationProperties(prefix = "gemini.hedging")
+@Validated
+@Data
+public class HedgingProperties {
+    private boolean enabled = false;
+
+    @DecimalMin("0.5")
+    @DecimalMax("0.999")
+    private double percentile = 0.95;
+
+    @Min(0)
+    @Max(120000)
+    private long minDelayMs = 1000;
+
+    @Min(1)
+    @Max(100000)
+    private long minSamples = 50;
+
+    @DecimalMin("0.0")
+    @DecimalMax("0.5")
+    private double maxHedgeRatio = 0.05;
+}
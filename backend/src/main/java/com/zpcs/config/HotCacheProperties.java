@@ -0,0 +1,26 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Off-heap cache of recently written and recently served original images.
+ */
+@ConfigurationProperties(prefix = "hot-cache")
+@Validated
+@Data
+public class HotCacheProperties {
+    private boolean enabled = true;
+
+    /** Direct memory held by cached images, counted by buffer capacity. */
+    @Min(0)
+    private long maxBytes = 268435456;
+
+    /** Larger images are always served from storage. */
+    @Min(1)
+    @Max(1073741824)
+    private int maxEntryBytes = 33554432;
+}
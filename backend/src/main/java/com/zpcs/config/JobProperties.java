@@ -0,0 +1,31 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "jobs")
+@Validated
+@Data
+public class JobProperties {
+    /** Upper bound of the job table, finished jobs included. */
+    @Min(1)
+    @Max(1000000)
+    private int maxJobs = 10000;
+
+    /** Jobs waiting for a worker before submissions are rejected. */
+    @Min(1)
+    @Max(100000)
+    private int maxQueued = 50;
+
+    /** How long finished jobs stay pollable. */
+    @Min(1)
+    @Max(86400)
+    private int retentionSeconds = 3600;
+
+    @Min(1000)
+    @Max(3600000)
+    private long sseTimeoutMs = 300000;
+}
@@ -0,0 +1,55 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Adaptive (AIMD) concurrency limit on upstream model calls.
+ */
+@ConfigurationProperties(prefix = "gemini.limiter")
+@Validated
+@Data
+public class LimiterProperties {
+    private boolean enabled = true;
+
+    @Min(1)
+    @Max(1000)
+    private int initialLimit = 8;
+
+    @Min(1)
+    @Max(1000)
+    private int minLimit = 1;
+
+    @Min(1)
+    @Max(1000)
+    private int maxLimit = 32;
+
+    /** Multiplier applied to the limit when the upstream answers 429 or times out. */
+    @DecimalMin("0.1")
+    @DecimalMax("0.95")
+    private double backoffRatio = 0.7;
+
+    /** Recent latency of a request class above this multiple of its smoothed baseline counts as overload. */
+    @DecimalMin("1.1")
+    @DecimalMax("100.0")
+    private double latencyTolerance = 3.0;
+
+    @Min(0)
+    @Max(100000)
+    private int maxQueue = 100;
+
+    @Min(0)
+    @Max(600000)
+    private long maxWaitMs = 10000;
+
+    @AssertTrue(message = "must satisfy min-limit <= initial-limit <= max-limit")
+    public boolean isLimitRangeValid() {
+        return minLimit <= initialLimit && initialLimit <= maxLimit;
+    }
+}
@@ -0,0 +1,38 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Reconciliation of image records against stored files.
+ */
+@ConfigurationProperties(prefix = "reconcile")
+@Validated
+@Data
+public class ReconcileProperties {
+    private boolean onStartup = true;
+
+    /** Report OUT_OF_SERVICE on the readiness group until the startup run finishes. */
+    private boolean gateReadiness = true;
+
+    @Min(1)
+    @Max(256)
+    private int parallelism = 8;
+
+    /** Files and records younger than this are left alone; a generation may be mid-write. */
+    @Min(0)
+    @Max(86400)
+    private int graceSeconds = 60;
+
+    @Min(10)
+    @Max(100000)
+    private int pageSize = 1000;
+
+    /** Ids listed per kind of difference in the report. */
+    @Min(0)
+    @Max(10000)
+    private int maxReportedIds = 100;
+}
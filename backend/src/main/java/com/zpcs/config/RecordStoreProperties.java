@@ -0,0 +1,38 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Where image records live: in memory only, or in a journal on disk.
+ */
+@ConfigurationProperties(prefix = "record-store")
+@Validated
+@Data
+public class RecordStoreProperties {
+
+    public enum Type {
+        MEMORY, JOURNAL
+    }
+
+    private Type type = Type.MEMORY;
+
+    @NotBlank
+    private String directory = "./data/records";
+
+    /** Journal entries after which a compacted snapshot is written. */
+    @Min(1000)
+    private int snapshotEveryEntries = 100000;
+
+    /** Most entries written and synced in one group commit. */
+    @Min(1)
+    @Max(65536)
+    private int maxBatchEntries = 4096;
+
+    /** Sync each group commit before its saves return, and the directory when journals roll. */
+    private boolean fsync = true;
+}
@@ -0,0 +1,36 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Retry backoff and circuit breaker tuning for model calls.
+ * The overall deadline and retry count come from {@link GeminiProperties}.
+ */
+@ConfigurationProperties(prefix = "gemini.resilience")
+@Validated
+@Data
+public class ResilienceProperties {
+    @Min(10)
+    @Max(60000)
+    private long initialBackoffMs = 500;
+
+    @Min(10)
+    @Max(120000)
+    private long maxBackoffMs = 8000;
+
+    @Min(1)
+    @Max(100)
+    private int failureThreshold = 5;
+
+    @Min(1)
+    @Max(600)
+    private int openStateSeconds = 30;
+
+    @Min(1)
+    @Max(100)
+    private int halfOpenMaxCalls = 1;
+}
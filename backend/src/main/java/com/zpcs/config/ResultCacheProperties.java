@@ -0,0 +1,39 @@
+package com.zpcs.config;
+
+import com.zpcs.model.enums.OperationMode;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+@ConfigurationProperties(prefix = "result-cache")
+@Validated
+@Data
+public class ResultCacheProperties {
+    private boolean enabled = false;
+
+    /** Operation modes whose results may be cached. */
+    private Set<OperationMode> modes = EnumSet.of(OperationMode.TEXT_TO_IMAGE);
+
+    @Min(1)
+    @Max(604800)
+    private long ttlSeconds = 86400;
+
+    /** Total image bytes held by the in-memory tier. */
+    @Min(0)
+    private long memoryMaxBytes = 256L * 1024 * 1024;
+
+    /** Fingerprints indexed by the disk tier, which points at stored images. */
+    @Min(0)
+    @Max(10000000)
+    private int diskMaxEntries = 100000;
+
+    /** Log the disk tier's index is kept in, so cached fingerprints survive restarts. */
+    @NotBlank
+    private String indexFile = "./data/result-cache/index.log";
+}
@@ -0,0 +1,65 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * S3-compatible object storage, used when storage.backend is S3.
+ */
+@ConfigurationProperties(prefix = "s3-storage")
+@Validated
+@Data
+public class S3StorageProperties {
+
+    /** Leave empty for AWS; set to the URL of MinIO or another S3-compatible store. */
+    private String endpoint;
+
+    @NotBlank
+    private String region = "us-east-1";
+
+    @NotBlank
+    private String bucket = "zpcs-images";
+
+    /** Prepended to every image id to form its object key. */
+    private String keyPrefix = "images/";
+
+    /** Static credentials; when empty the default AWS provider chain is used. */
+    private String accessKey;
+
+    private String secretKey;
+
+    /** Bucket in the path rather than the host name, as most self-hosted stores expect. */
+    private boolean pathStyleAccess = true;
+
+    private boolean createBucket = true;
+
+    /** Images up to this size go up in one PUT; larger ones as multipart uploads of parts this size. */
+    @Min(5242880)
+    @Max(536870912)
+    private int partBytes = 8388608;
+
+    /** Parts of one upload sent at once, and threads sending parts across all uploads. */
+    @Min(1)
+    @Max(64)
+    private int uploadParallelism = 4;
+
+    @Min(1)
+    @Max(1024)
+    private int maxConnections = 64;
+
+    /** Object sizes and existence remembered to spare HEAD requests. */
+    @Min(0)
+    private int metadataCacheEntries = 100000;
+
+    /** How long a known object is trusted; only another replica deleting it can make this stale. */
+    @Min(0)
+    private long metadataTtlSeconds = 300;
+
+    /** How long a missing object stays missing; short, as another replica may be writing it. */
+    @Min(0)
+    private long missingTtlSeconds = 5;
+}
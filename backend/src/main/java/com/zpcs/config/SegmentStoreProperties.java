@@ -0,0 +1,36 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Packed segment storage, used when storage.backend is SEGMENT.
+ */
+@ConfigurationProperties(prefix = "segment-store")
+@Validated
+@Data
+public class SegmentStoreProperties {
+
+    @NotBlank
+    private String directory = "./data/segments";
+
+    /** Size at which a segment is sealed and the next one started; also the largest image accepted. */
+    @Min(1048576)
+    @Max(1073741824)
+    private int segmentBytes = 1073741824;
+
+    /** Sync each appended record, and the directory when a segment is created, before a save returns. */
+    private boolean fsync = true;
+
+    /** Share of a sealed segment occupied by deleted or replaced images at which it is compacted. */
+    @Min(1)
+    @Max(100)
+    private int compactionGarbagePercent = 50;
+
+    @Min(1)
+    private int compactionIntervalSeconds = 60;
+}
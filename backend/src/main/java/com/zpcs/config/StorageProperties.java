@@ -1,6 +1,9 @@
 package com.zpcs.config;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
@@ -11,4 +14,44 @@ import org.springframework.validation.annotation.Validated;
 public class StorageProperties {
     @NotBlank
     private String basePath;
+
+    @NotNull
+    private Backend backend = Backend.FILE;
+
+    /** This and the settings below apply to the FILE backend. */
+    @NotNull
+    private Layout layout = Layout.SHARDED;
+
+    /** Directory levels under the base path, 256 entries each. */
+    @Min(1)
+    @Max(3)
+    private int shardDepth = 2;
+
+    /** Flush file data and the directory entry before a save returns. */
+    private boolean fsync = true;
+
+    /** Move images left in the flat layout into shards after startup. */
+    private boolean migrateOnStartup = true;
+
+    @Min(1)
+    @Max(256)
+    private int migrationParallelism = 4;
+
+    public enum Backend {
+        /** One file per image under the base path. */
+        FILE,
+        /** Images packed into large append-only segment files; see SegmentStoreProperties. */
+        SEGMENT,
+        /** One blob per distinct content, shared by reference count; see DedupStoreProperties. */
+        DEDUP,
+        /** Objects in an S3-compatible bucket shared by every replica; see S3StorageProperties. */
+        S3
+    }
+
+    public enum Layout {
+        /** Every image directly under the base path. */
+        FLAT,
+        /** Images spread over hashed subdirectories. */
+        SHARDED
+    }
 }
@@ -0,0 +1,64 @@
+package com.zpcs.config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Behaviour of the local stub model backend (profile {@code stub}).
+ */
+@ConfigurationProperties(prefix = "stub-model")
+@Validated
+@Data
+public class StubModelProperties {
+
+    public enum LatencyMode {
+        FIXED, LOGNORMAL, REPLAY
+    }
+
+    private LatencyMode latencyMode = LatencyMode.LOGNORMAL;
+
+    @Min(0)
+    @Max(600000)
+    private long fixedLatencyMs = 8000;
+
+    @Min(1)
+    @Max(600000)
+    private long lognormalMedianMs = 8000;
+
+    @DecimalMin("0.0")
+    @DecimalMax("3.0")
+    private double lognormalSigma = 0.5;
+
+    /**
+     * Recorded latency histogram for REPLAY: one "upperBoundMs count" pair
+     * per line, ascending; '#' starts a comment.
+     */
+    private String replayHistogram;
+
+    /** Fraction of calls failing with a retryable 503. */
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double errorRate = 0.0;
+
+    /** Fraction of calls rejected with a 429. */
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double throttleRate = 0.0;
+
+    @Min(1)
+    @Max(3600)
+    private int throttleRetryAfterSeconds = 30;
+
+    /** Same seed, same call order: same latencies and failures. */
+    private long seed = 42;
+
+    /** Distinct images rendered per resolution; prompts map onto them by hash. */
+    @Min(1)
+    @Max(256)
+    private int imageVariants = 8;
+}
@@ -0,0 +1,50 @@
+package com.zpcs.controller;
+
+import com.zpcs.dto.response.ReconciliationStatus;
+import com.zpcs.dto.response.StorageMigrationStatus;
+import com.zpcs.reconcile.StorageReconciler;
+import com.zpcs.storage.StorageLayoutMigrator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+@RequiredArgsConstructor
+@Tag(name = "Admin")
+public class AdminController {
+
+    private final StorageReconciler reconciler;
+    /** Absent unless the file storage backend is active. */
+    private final ObjectProvider<StorageLayoutMigrator> migrator;
+
+    @PostMapping("/reconcile")
+    @Operation(summary = "Reconcile image records with stored files in the background")
+    public ResponseEntity<ReconciliationStatus> reconcile() {
+        return ResponseEntity.accepted().body(reconciler.start());
+    }
+
+    @GetMapping("/reconcile")
+    @Operation(summary = "Progress and result of the latest reconciliation")
+    public ResponseEntity<ReconciliationStatus> reconcileStatus() {
+        return ResponseEntity.ok(reconciler.status());
+    }
+
+    @PostMapping("/storage/migrate")
+    @Operation(summary = "Move images from the flat layout into shards in the background")
+    public ResponseEntity<StorageMigrationStatus> migrateStorage() {
+        StorageLayoutMigrator available = migrator.getIfAvailable();
+        return available != null ? ResponseEntity.accepted().body(available.start())
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/storage/migrate")
+    @Operation(summary = "Progress and result of the latest storage migration")
+    public ResponseEntity<StorageMigrationStatus> migrateStorageStatus() {
+        StorageLayoutMigrator available = migrator.getIfAvailable();
+        return available != null ? ResponseEntity.ok(available.status()) : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.zpcs.controller;
+
+import com.zpcs.batch.BatchGenerationService;
+import com.zpcs.dto.request.BatchGenerateRequest;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/v1/images")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Image Generation")
+public class BatchController {
+
+    private final BatchGenerationService batchService;
+
+    @PostMapping(value = "/batch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Generate option variants of one request, streaming results as they complete")
+    public SseEmitter batch(@Valid @RequestBody BatchGenerateRequest request) {
+        log.info("Batch: mode={}, styles={}, lightings={}, palettes={}",
+                request.getBase().getOperationMode(), request.getAestheticStyles(),
+                request.getLightings(), request.getColorPalettes());
+        return batchService.submit(request);
+    }
+}
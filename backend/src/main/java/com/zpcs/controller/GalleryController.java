@@ -1,5 +1,6 @@
 package com.zpcs.controller;
 
+import com.zpcs.dto.response.GalleryCursorPage;
 import com.zpcs.model.ImageRecord;
 import com.zpcs.service.GalleryService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -25,6 +26,14 @@ public class GalleryController {
         return ResponseEntity.ok(galleryService.listImages(page, size));
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "List generation history by cursor, newest first")
+    public ResponseEntity<GalleryCursorPage> listByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(galleryService.listImagesAfter(after, size));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete a generated image")
     public ResponseEntity<Void> delete(@PathVariable String id) {
@@ -0,0 +1,261 @@
+package com.zpcs.controller;
+
+import com.zpcs.buffer.PooledBuffer;
+import com.zpcs.cache.HotImageCache;
+import com.zpcs.derivative.DerivativeService;
+import com.zpcs.derivative.Rendition;
+import com.zpcs.exception.ImageNotFoundException;
+import com.zpcs.model.ImageRecord;
+import com.zpcs.orchestrator.ImageGenerationOrchestrator;
+import com.zpcs.storage.ByteBufferResource;
+import com.zpcs.storage.RangedResource;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Serves stored image files. Kept apart from the generation controllers
+ * so it is available whichever generation pipeline is active.
+ * Files are handed to Tomcat's sendfile when the connector supports it and
+ * copied with {@link FileChannel#transferTo} otherwise; originals held by
+ * the {@link HotImageCache} and buffer-backed images are written straight
+ * from their buffer, and remote objects fetch only the requested range.
+ * Only full-body GETs fill the hot cache.
+ * Single byte ranges and conditional requests on the content-hash ETag are
+ * honoured, and {@code size} selects a thumbnail or preview rendition,
+ * tagged with the hash of its own bytes.
+ */
+@RestController
+@RequestMapping("/api/v1/images")
+@RequiredArgsConstructor
+@Tag(name = "Image Generation")
+public class ImageFileController {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /** Tomcat's own default threshold; below it a plain copy is cheaper. */
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    /** Image ids are never reused, so the bytes behind a URL never change. */
+    private static final String CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic()
+            .immutable()
+            .getHeaderValue();
+
+    /** A rendition rendered again under new settings changes its bytes, so caches revalidate it daily. */
+    private static final String RENDITION_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(1))
+            .cachePublic()
+            .getHeaderValue();
+
+    private final ImageGenerationOrchestrator orchestrator;
+    private final DerivativeService derivativeService;
+    private final HotImageCache hotImageCache;
+
+    @GetMapping("/{id}/file")
+    @Operation(summary = "Get a generated image file, optionally as a thumbnail or preview")
+    public void getFile(@PathVariable String id,
+            @RequestParam(required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Rendition rendition = Rendition.fromParameter(size);
+        ImageRecord record = orchestrator.getImageRecord(id);
+        String mimeType = record.getMimeType() != null ? record.getMimeType() : MediaType.IMAGE_PNG_VALUE;
+        String cacheControl = CACHE_CONTROL;
+        Resource resource = null;
+        if (rendition.isDerived()) {
+            Optional<Resource> derived = derivativeService.load(id, rendition);
+            if (derived.isPresent()) {
+                resource = derived.get();
+                mimeType = MediaType.IMAGE_JPEG_VALUE;
+                cacheControl = RENDITION_CACHE_CONTROL;
+            } else {
+                // Serving the original in its place; don't let caches keep it under this URL
+                rendition = Rendition.ORIGINAL;
+                cacheControl = CacheControl.noCache().getHeaderValue();
+            }
+        }
+        PooledBuffer hot = null;
+        try {
+            if (!rendition.isDerived()) {
+                hot = hotImageCache.get(id).orElse(null);
+                if (hot == null) {
+                    resource = orchestrator.getImageFile(id).getResource();
+                }
+            }
+            long length = hot != null ? hot.size() : resource.contentLength();
+            String etag;
+            if (rendition.isDerived()) {
+                etag = "\"" + derivativeService.entityTag(id, rendition, resource) + "\"";
+            } else if (record.getContentHash() != null) {
+                etag = "\"" + record.getContentHash() + "\"";
+            } else {
+                // The weak tag avoids file metadata so it is the same whether the bytes come from disk or memory
+                etag = "W/\"" + Long.toHexString(length) + "-"
+                        + Long.toHexString(record.getCreatedAt().toEpochSecond(ZoneOffset.UTC)) + "\"";
+            }
+
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+                return;
+            }
+            if (hot == null && !rendition.isDerived() && !HttpMethod.HEAD.matches(request.getMethod())
+                    && requestedRange(request, etag) == null) {
+                // Only a miss about to send the whole body is worth reading into memory;
+                // a range request would otherwise pull a remote object down in full
+                hot = hotImageCache.load(id, resource).orElse(null);
+            }
+            serve(id, etag, mimeType, hot, resource, length, request, response);
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            throw new ImageNotFoundException(id);
+        } finally {
+            if (hot != null) {
+                hot.release();
+            }
+        }
+    }
+
+    /**
+     * Range handling and body for one image, from {@code hot} when the cache
+     * holds it and from {@code resource} otherwise.
+     */
+    private void serve(String id, String etag, String mimeType, PooledBuffer hot, Resource resource, long length,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(mimeType);
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = requestedRange(request, etag);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                end = start - 1;
+            }
+            if (start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (hot != null) {
+            writeBuffer(hot.nioBuffer(), start, count, response);
+            return;
+        }
+        if (resource instanceof ByteBufferResource buffered) {
+            writeBuffer(buffered.byteBuffer(), start, count, response);
+            return;
+        }
+        if (resource instanceof RangedResource ranged) {
+            try (InputStream in = ranged.getInputStream(start, end)) {
+                in.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+        if (!resource.isFile()) {
+            try (InputStream in = resource.getInputStream()) {
+                StreamUtils.copyRange(in, response.getOutputStream(), start, end);
+            }
+            return;
+        }
+        Path file = resource.getFile().toPath();
+        if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat streams the file once the handler returns; the end offset is exclusive
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long sent = channel.transferTo(position, end + 1 - position, out);
+                if (sent <= 0) {
+                    throw new EOFException("Image " + id + " shrank while being served");
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * Writes part of a buffer. Tomcat's stream takes the buffer as is;
+     * anything else goes through a channel adapter's copy buffer.
+     */
+    private static void writeBuffer(ByteBuffer content, long start, long count, HttpServletResponse response)
+            throws IOException {
+        ByteBuffer slice = content.slice(content.position() + (int) start, (int) count);
+        OutputStream stream = response.getOutputStream();
+        if (stream instanceof CoyoteOutputStream coyote) {
+            coyote.write(slice);
+            return;
+        }
+        WritableByteChannel out = Channels.newChannel(stream);
+        while (slice.hasRemaining()) {
+            out.write(slice);
+        }
+    }
+
+    /**
+     * The single range to serve, or null for the whole file. Multiple ranges,
+     * malformed headers and a stale If-Range all fall back to the whole file.
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && (etag.startsWith("W/") || !ifRange.equals(etag))) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -9,13 +9,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.http.MediaType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+/**
+ * Blocking generation endpoints, the default pipeline.
+ * See {@link ReactiveImageGenerationController} for generation.pipeline=reactive.
+ */
 @RestController
 @RequestMapping("/api/v1/images")
+@ConditionalOnProperty(name = "generation.pipeline", havingValue = "blocking", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 @Tag(name = "Image Generation")
@@ -38,12 +42,4 @@ public class ImageGenerationController {
         log.info("Edit: mode={}", request.getOperationMode());
         return ResponseEntity.ok(orchestrator.edit(request));
     }
-
-    @GetMapping("/{id}/file")
-    @Operation(summary = "Get a generated image file")
-    public ResponseEntity<Resource> getFile(@PathVariable String id) {
-        return ResponseEntity.ok()
-                .contentType(MediaType.IMAGE_PNG)
-                .body(orchestrator.getImageFile(id));
-    }
 }
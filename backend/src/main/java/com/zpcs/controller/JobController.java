@@ -0,0 +1,50 @@
+package com.zpcs.controller;
+
+import com.zpcs.dto.request.GenerateImageRequest;
+import com.zpcs.dto.response.JobStatusResponse;
+import com.zpcs.job.GenerationJob;
+import com.zpcs.job.GenerationJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/v1/jobs")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Generation Jobs")
+public class JobController {
+
+    private final GenerationJobService jobService;
+
+    @PostMapping
+    @Operation(summary = "Submit an asynchronous generation job")
+    public ResponseEntity<JobStatusResponse> submit(@Valid @RequestBody GenerateImageRequest request) {
+        log.info("Submit job: mode={}, style={}", request.getOperationMode(), request.getAestheticStyle());
+        GenerationJob job = jobService.submit(request);
+        JobStatusResponse body = jobService.toResponse(job);
+        return ResponseEntity.accepted()
+                .location(URI.create(body.getStatusUrl()))
+                .body(body);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get the state of a generation job")
+    public ResponseEntity<JobStatusResponse> status(@PathVariable String id) {
+        return ResponseEntity.ok(jobService.toResponse(jobService.get(id)));
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream state transitions of a generation job")
+    public SseEmitter events(@PathVariable String id) {
+        return jobService.subscribe(id);
+    }
+}
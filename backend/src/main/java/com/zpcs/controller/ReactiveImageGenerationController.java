@@ -0,0 +1,47 @@
+package com.zpcs.controller;
+
+import com.zpcs.dto.request.EditImageRequest;
+import com.zpcs.dto.request.GenerateImageRequest;
+import com.zpcs.dto.response.GeneratedImageResponse;
+import com.zpcs.orchestrator.ImageGenerationOrchestrator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking generation endpoints, active when generation.pipeline=reactive.
+ * Same contract as {@link ImageGenerationController}; the request thread is
+ * released while the model call is in flight.
+ */
+@RestController
+@RequestMapping("/api/v1/images")
+@ConditionalOnProperty(name = "generation.pipeline", havingValue = "reactive")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Image Generation")
+public class ReactiveImageGenerationController {
+
+    private final ImageGenerationOrchestrator orchestrator;
+
+    @PostMapping("/generate")
+    @Operation(summary = "Generate a new image from options")
+    public Mono<ResponseEntity<GeneratedImageResponse>> generate(
+            @Valid @RequestBody GenerateImageRequest request) {
+        log.info("Generate (reactive): mode={}, style={}", request.getOperationMode(), request.getAestheticStyle());
+        return orchestrator.generateReactive(request).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/edit")
+    @Operation(summary = "Edit an existing image")
+    public Mono<ResponseEntity<GeneratedImageResponse>> edit(
+            @Valid @RequestBody EditImageRequest request) {
+        log.info("Edit (reactive): mode={}", request.getOperationMode());
+        return orchestrator.editReactive(request).map(ResponseEntity::ok);
+    }
+}
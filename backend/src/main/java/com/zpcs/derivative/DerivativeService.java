@@ -0,0 +1,230 @@
+package com.zpcs.derivative;
+
+import com.zpcs.config.DerivativeProperties;
+import com.zpcs.event.ImageGeneratedEvent;
+import com.zpcs.storage.ContentHash;
+import com.zpcs.storage.ImageRecordRepository;
+import com.zpcs.storage.StorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thumbnail and preview renditions of generated images, stored through
+ * {@link StorageService} under ids derived from the original.
+ * <p>
+ * Renders run on a small dedicated pool with a bounded queue, since each
+ * one holds a decoded full-resolution image. New images are queued for
+ * rendering as soon as they are generated; a rendition requested before it
+ * exists is rendered on demand, and concurrent requests for the same one
+ * share a single render. When the pool is saturated the caller gets nothing
+ * and serves the original instead.
+ */
+@Service
+@Slf4j
+public class DerivativeService {
+
+    private static final List<Rendition> DERIVED = List.of(Rendition.THUMBNAIL, Rendition.PREVIEW);
+    private static final int MAX_ENTITY_TAGS = 10_000;
+
+    /** Digest of a stored rendition, valid while its length and timestamp are unchanged. */
+    private record EntityTag(long length, long lastModified, String value) {
+    }
+
+    private final StorageService storageService;
+    private final ImageRecordRepository repository;
+    private final DerivativeProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor renderers;
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final Counter dropped;
+
+    private final ReentrantLock entityTagLock = new ReentrantLock();
+    private final Map<String, EntityTag> entityTags = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, EntityTag> eldest) {
+            return size() > MAX_ENTITY_TAGS;
+        }
+    };
+
+    public DerivativeService(StorageService storageService, ImageRecordRepository repository,
+            DerivativeProperties properties, MeterRegistry meterRegistry) {
+        this.storageService = storageService;
+        this.repository = repository;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.renderers = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                Thread.ofPlatform().name("derivative-", 0).daemon(true).factory());
+        this.dropped = meterRegistry.counter("zpcs.derivatives.dropped");
+        Gauge.builder("zpcs.derivatives.queued", renderers, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onImageGenerated(ImageGeneratedEvent event) {
+        if (properties.isEager()) {
+            for (Rendition rendition : DERIVED) {
+                render(event.getRecord().getId(), rendition, "generated");
+            }
+        }
+    }
+
+    /**
+     * The stored rendition, rendering it first if needed. Empty when it
+     * cannot be had in time, in which case the caller should fall back to
+     * the original.
+     */
+    public Optional<Resource> load(String imageId, Rendition rendition) {
+        String storageId = rendition.storageId(imageId);
+        if (storageService.exists(storageId)) {
+            return Optional.of(storageService.load(storageId));
+        }
+        try {
+            render(imageId, rendition, "requested").get(properties.getRenderTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Rendition {} of {} unavailable: {}", rendition, imageId, e.toString());
+            return Optional.empty();
+        }
+        return Optional.of(storageService.load(storageId));
+    }
+
+    /**
+     * SHA-256 of the stored rendition's own bytes, for use as a strong ETag.
+     * Renditions change with the render settings, so the original's hash
+     * cannot stand in for them. Digests are remembered per rendition and
+     * recomputed only when its length or timestamp changes.
+     */
+    public String entityTag(String imageId, Rendition rendition, Resource resource) throws IOException {
+        String storageId = rendition.storageId(imageId);
+        long length = resource.contentLength();
+        long lastModified = resource.lastModified();
+        EntityTag cached;
+        entityTagLock.lock();
+        try {
+            cached = entityTags.get(storageId);
+        } finally {
+            entityTagLock.unlock();
+        }
+        if (cached != null && cached.length() == length && cached.lastModified() == lastModified) {
+            return cached.value();
+        }
+        MessageDigest digest = ContentHash.newDigest();
+        try (InputStream in = resource.getInputStream()) {
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                digest.update(chunk, 0, read);
+            }
+        }
+        String value = HexFormat.of().formatHex(digest.digest());
+        entityTagLock.lock();
+        try {
+            entityTags.put(storageId, new EntityTag(length, lastModified, value));
+        } finally {
+            entityTagLock.unlock();
+        }
+        return value;
+    }
+
+    /** Deletes every stored rendition of {@code imageId}. */
+    public void delete(String imageId) {
+        for (Rendition rendition : DERIVED) {
+            storageService.delete(rendition.storageId(imageId));
+            forgetEntityTag(rendition.storageId(imageId));
+        }
+    }
+
+    private void forgetEntityTag(String storageId) {
+        entityTagLock.lock();
+        try {
+            entityTags.remove(storageId);
+        } finally {
+            entityTagLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        renderers.shutdownNow();
+    }
+
+    private CompletableFuture<Void> render(String imageId, Rendition rendition, String trigger) {
+        String storageId = rendition.storageId(imageId);
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(storageId, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            renderers.execute(() -> {
+                try {
+                    renderNow(imageId, rendition, storageId, trigger);
+                    created.complete(null);
+                } catch (Throwable e) {
+                    log.warn("Failed to render {} of {}", rendition, imageId, e);
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(storageId, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(storageId, created);
+            dropped.increment();
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private void renderNow(String imageId, Rendition rendition, String storageId, String trigger) throws Exception {
+        if (storageService.exists(storageId)) {
+            return;
+        }
+        int edge = rendition == Rendition.THUMBNAIL ? properties.getThumbnailEdge() : properties.getPreviewEdge();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try (InputStream original = storageService.load(imageId).getInputStream()) {
+            storageService.save(storageId, channel -> ImageScaler.scale(original, edge, properties.getJpegQuality(),
+                    Channels.newOutputStream(channel)));
+        }
+        // The image may have been deleted while this rendered. Deletion drops the record
+        // before the renditions, so either it removes this one or this check sees the record gone.
+        if (repository.findById(imageId).isEmpty()) {
+            storageService.delete(storageId);
+            forgetEntityTag(storageId);
+            log.debug("Discarded {} of {}, deleted while rendering", rendition, imageId);
+            return;
+        }
+        sample.stop(meterRegistry.timer("zpcs.derivatives.render", "rendition", rendition.name()));
+        meterRegistry.counter("zpcs.derivatives.rendered", "rendition", rendition.name(), "trigger", trigger)
+                .increment();
+    }
+}
@@ -0,0 +1,53 @@
+package com.zpcs.derivative;
+
+import com.zpcs.exception.InvalidRenditionException;
+
+import java.util.Locale;
+
+/**
+ * Sizes an image can be served at. Derived renditions are stored under the
+ * original id plus a suffix, so storage keeps them next to the original.
+ */
+public enum Rendition {
+    ORIGINAL(null),
+    THUMBNAIL("thumbnail"),
+    PREVIEW("preview");
+
+    private final String suffix;
+
+    Rendition(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public boolean isDerived() {
+        return suffix != null;
+    }
+
+    /** Storage id of this rendition of {@code imageId}. */
+    public String storageId(String imageId) {
+        return suffix == null ? imageId : imageId + "." + suffix;
+    }
+
+    /** Id of the original that storage id {@code storageId} is a rendition of. */
+    public static String originalId(String storageId) {
+        int dot = storageId.indexOf('.');
+        return dot < 0 ? storageId : storageId.substring(0, dot);
+    }
+
+    /** True for storage ids of derived renditions rather than originals. */
+    public static boolean isDerivedId(String storageId) {
+        return storageId.indexOf('.') >= 0;
+    }
+
+    /** Parses a {@code size} parameter; absent means the original. */
+    public static Rendition fromParameter(String size) {
+        if (size == null || size.isBlank()) {
+            return ORIGINAL;
+        }
+        try {
+            return valueOf(size.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRenditionException(size);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.zpcs.dto.request;
+
+import com.zpcs.model.enums.AestheticStyle;
+import com.zpcs.model.enums.ColorPalette;
+import com.zpcs.model.enums.LightingSetup;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A base request plus the option axes to vary.
+ * Every combination of the listed values is generated; an empty or
+ * missing axis keeps the base request's value.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGenerateRequest {
+
+    @NotNull(message = "Base request is required")
+    @Valid
+    private GenerateImageRequest base;
+
+    @Size(max = 32, message = "At most 32 aesthetic styles per batch")
+    private List<AestheticStyle> aestheticStyles;
+
+    @Size(max = 32, message = "At most 32 lightings per batch")
+    private List<LightingSetup> lightings;
+
+    @Size(max = 32, message = "At most 32 color palettes per batch")
+    private List<ColorPalette> colorPalettes;
+}
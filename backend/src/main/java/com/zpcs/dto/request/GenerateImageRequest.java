@@ -10,7 +10,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class GenerateImageRequest {
@@ -39,4 +39,7 @@ public class GenerateImageRequest {
 
     private StyleIntensity styleIntensity;
     private String sourceImageBase64;
+
+    /** Skip the result cache and always call the model. */
+    private Boolean bypassCache;
 }
@@ -0,0 +1,15 @@
+package com.zpcs.dto.response;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class BatchSummary {
+    String batchId;
+    int total;
+    int succeeded;
+    int failed;
+    boolean deadlineExceeded;
+    long elapsedMs;
+}
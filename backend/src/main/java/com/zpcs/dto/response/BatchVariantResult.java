@@ -0,0 +1,25 @@
+package com.zpcs.dto.response;
+
+import com.zpcs.model.enums.AestheticStyle;
+import com.zpcs.model.enums.ColorPalette;
+import com.zpcs.model.enums.LightingSetup;
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+@Value
+@Builder
+public class BatchVariantResult {
+    String batchId;
+    int index;
+    AestheticStyle aestheticStyle;
+    LightingSetup lighting;
+    ColorPalette colorPalette;
+    boolean success;
+    @Nullable
+    GeneratedImageResponse result;
+    @Nullable
+    String errorCode;
+    @Nullable
+    String errorMessage;
+}
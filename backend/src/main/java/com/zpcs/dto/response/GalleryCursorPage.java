@@ -0,0 +1,16 @@
+package com.zpcs.dto.response;
+
+import com.zpcs.model.ImageRecord;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class GalleryCursorPage {
+    List<ImageRecord> items;
+    /** Pass as {@code after} to get the next page; null on the last page. */
+    String nextCursor;
+    boolean hasMore;
+}
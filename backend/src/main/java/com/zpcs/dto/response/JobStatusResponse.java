@@ -0,0 +1,25 @@
+package com.zpcs.dto.response;
+
+import com.zpcs.job.JobState;
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+
+@Value
+@Builder
+public class JobStatusResponse {
+    String id;
+    JobState state;
+    Instant submittedAt;
+    Instant updatedAt;
+    String statusUrl;
+    String eventsUrl;
+    @Nullable
+    GeneratedImageResponse result;
+    @Nullable
+    String errorCode;
+    @Nullable
+    String errorMessage;
+}
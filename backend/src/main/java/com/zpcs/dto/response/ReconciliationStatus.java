@@ -0,0 +1,30 @@
+package com.zpcs.dto.response;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+@Value
+@Builder
+public class ReconciliationStatus {
+
+    public enum State {
+        IDLE, RUNNING, COMPLETED, FAILED
+    }
+
+    State state;
+    Instant startedAt;
+    Instant finishedAt;
+    long filesScanned;
+    long recordsChecked;
+    long recordsRebuilt;
+    long recordsRemoved;
+    long renditionsRemoved;
+    /** Sample of ids whose records were rebuilt from orphan files. */
+    List<String> rebuiltIds;
+    /** Sample of ids whose records were removed because their file is gone. */
+    List<String> removedIds;
+    String error;
+}
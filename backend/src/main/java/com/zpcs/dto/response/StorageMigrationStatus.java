@@ -0,0 +1,27 @@
+package com.zpcs.dto.response;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+@Builder
+public class StorageMigrationStatus {
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    State state;
+    Instant startedAt;
+    Instant finishedAt;
+    long moved;
+    /** Flat copies dropped because the shard already held the image. */
+    long skipped;
+    long failed;
+    String error;
+}
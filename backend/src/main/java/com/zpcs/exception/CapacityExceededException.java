@@ -0,0 +1,12 @@
+package com.zpcs.exception;
+
+/**
+ * A 429 raised by this service's own admission control (bulkhead, limiter)
+ * before any upstream call was made, so it says nothing about upstream health.
+ */
+public class CapacityExceededException extends QuotaExceededException {
+
+    public CapacityExceededException(int retryAfterSeconds) {
+        super(retryAfterSeconds);
+    }
+}
@@ -1,9 +1,17 @@
 package com.zpcs.exception;
 
+import lombok.Getter;
 import org.springframework.http.HttpStatus;
 
+@Getter
 public class GeminiApiException extends ZpcsException {
 
+    /** HTTP status returned by the upstream, or 0 when no response was received. */
+    private final int upstreamStatus;
+
+    /** Whether the failure is transient and the call may be retried. */
+    private final boolean retryable;
+
     @Override
     public HttpStatus getHttpStatus() {
         return HttpStatus.BAD_GATEWAY;
@@ -15,10 +23,16 @@ public class GeminiApiException extends ZpcsException {
     }
 
     public GeminiApiException(String message) {
-        super(message);
+        this(message, 0, false, null);
     }
 
     public GeminiApiException(String message, Throwable cause) {
+        this(message, 0, false, cause);
+    }
+
+    public GeminiApiException(String message, int upstreamStatus, boolean retryable, Throwable cause) {
         super(message, cause);
+        this.upstreamStatus = upstreamStatus;
+        this.retryable = retryable;
     }
 }
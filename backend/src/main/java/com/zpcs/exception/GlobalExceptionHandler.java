@@ -2,6 +2,7 @@ package com.zpcs.exception;
 
 import com.zpcs.dto.response.ErrorResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,13 +22,29 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(ZpcsException.class)
     public ResponseEntity<ErrorResponse> handleAppException(ZpcsException ex) {
         log.warn("App exception: {} - {}", ex.getErrorCode(), ex.getMessage());
+        Integer retryAfter = retryAfterSeconds(ex);
         ErrorResponse body = ErrorResponse.builder()
                 .error(ex.getErrorCode())
                 .message(ex.getMessage())
                 .timestamp(LocalDateTime.now())
-                .retryAfterSeconds(ex instanceof QuotaExceededException q ? q.getRetryAfterSeconds() : null)
+                .retryAfterSeconds(retryAfter)
                 .build();
-        return ResponseEntity.status(ex.getHttpStatus()).body(body);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(ex.getHttpStatus());
+        if (retryAfter != null) {
+            // The standard header, for clients and proxies that never read the body
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        }
+        return response.body(body);
+    }
+
+    private static Integer retryAfterSeconds(ZpcsException ex) {
+        if (ex instanceof QuotaExceededException quota) {
+            return quota.getRetryAfterSeconds();
+        }
+        if (ex instanceof UpstreamUnavailableException unavailable) {
+            return unavailable.getRetryAfterSeconds();
+        }
+        return null;
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -0,0 +1,20 @@
+package com.zpcs.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidBatchException extends ZpcsException {
+
+    @Override
+    public HttpStatus getHttpStatus() {
+        return HttpStatus.BAD_REQUEST;
+    }
+
+    @Override
+    public String getErrorCode() {
+        return "VALIDATION_ERROR";
+    }
+
+    public InvalidBatchException(String message) {
+        super(message);
+    }
+}
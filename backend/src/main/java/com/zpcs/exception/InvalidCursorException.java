@@ -0,0 +1,20 @@
+package com.zpcs.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidCursorException extends ZpcsException {
+
+    @Override
+    public HttpStatus getHttpStatus() {
+        return HttpStatus.BAD_REQUEST;
+    }
+
+    @Override
+    public String getErrorCode() {
+        return "INVALID_CURSOR";
+    }
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid gallery cursor: " + cursor);
+    }
+}
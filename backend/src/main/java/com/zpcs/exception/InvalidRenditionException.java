@@ -0,0 +1,20 @@
+package com.zpcs.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidRenditionException extends ZpcsException {
+
+    @Override
+    public HttpStatus getHttpStatus() {
+        return HttpStatus.BAD_REQUEST;
+    }
+
+    @Override
+    public String getErrorCode() {
+        return "INVALID_SIZE";
+    }
+
+    public InvalidRenditionException(String size) {
+        super("Unknown image size: " + size + "; expected original, thumbnail or preview");
+    }
+}
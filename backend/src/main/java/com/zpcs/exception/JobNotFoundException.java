@@ -0,0 +1,20 @@
+package com.zpcs.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class JobNotFoundException extends ZpcsException {
+
+    @Override
+    public HttpStatus getHttpStatus() {
+        return HttpStatus.NOT_FOUND;
+    }
+
+    @Override
+    public String getErrorCode() {
+        return "NOT_FOUND";
+    }
+
+    public JobNotFoundException(String id) {
+        super("Job not found: " + id);
+    }
+}
@@ -0,0 +1,28 @@
+package com.zpcs.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown without calling the upstream while its circuit breaker is open.
+ */
+@Getter
+public class UpstreamUnavailableException extends ZpcsException {
+
+    private final int retryAfterSeconds;
+
+    @Override
+    public HttpStatus getHttpStatus() {
+        return HttpStatus.SERVICE_UNAVAILABLE;
+    }
+
+    @Override
+    public String getErrorCode() {
+        return "UPSTREAM_UNAVAILABLE";
+    }
+
+    public UpstreamUnavailableException(long retryAfterSeconds) {
+        super("Image model is temporarily unavailable. Try again in " + retryAfterSeconds + " seconds.");
+        this.retryAfterSeconds = (int) Math.min(retryAfterSeconds, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,56 @@
+package com.zpcs.job;
+
+import com.zpcs.dto.request.GenerateImageRequest;
+import com.zpcs.dto.response.GeneratedImageResponse;
+import lombok.Getter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Mutable state of one asynchronous generation.
+ * Written by the single worker running it, read by pollers and SSE subscribers.
+ */
+@Getter
+public class GenerationJob {
+
+    private final String id;
+    private final GenerateImageRequest request;
+    private final Instant submittedAt;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile JobState state = JobState.QUEUED;
+    private volatile Instant updatedAt;
+    private volatile Instant startedAt;
+    private volatile GeneratedImageResponse result;
+    private volatile String errorCode;
+    private volatile String errorMessage;
+
+    public GenerationJob(String id, GenerateImageRequest request) {
+        this.id = id;
+        this.request = request;
+        this.submittedAt = Instant.now();
+        this.updatedAt = submittedAt;
+    }
+
+    void transition(JobState next) {
+        if (state == JobState.QUEUED && next != JobState.QUEUED) {
+            startedAt = Instant.now();
+        }
+        state = next;
+        updatedAt = Instant.now();
+    }
+
+    void succeed(GeneratedImageResponse response) {
+        result = response;
+        transition(JobState.DONE);
+    }
+
+    void fail(String code, String message) {
+        errorCode = code;
+        errorMessage = message;
+        transition(JobState.FAILED);
+    }
+}
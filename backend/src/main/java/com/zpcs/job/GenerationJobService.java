@@ -0,0 +1,243 @@
+package com.zpcs.job;
+
+import com.zpcs.config.JobProperties;
+import com.zpcs.dto.request.GenerateImageRequest;
+import com.zpcs.dto.response.GeneratedImageResponse;
+import com.zpcs.dto.response.JobStatusResponse;
+import com.zpcs.exception.JobNotFoundException;
+import com.zpcs.exception.QuotaExceededException;
+import com.zpcs.exception.ZpcsException;
+import com.zpcs.orchestrator.ImageGenerationOrchestrator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs generations asynchronously on the generation executor and keeps
+ * their state in a bounded in-memory table.
+ * Finished jobs are evicted after the retention period, or oldest first
+ * when the table is full; a full table of running jobs rejects submissions.
+ */
+@Service
+@Slf4j
+public class GenerationJobService {
+
+    private final ImageGenerationOrchestrator orchestrator;
+    private final Executor executor;
+    private final JobProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, GenerationJob> jobs = new LinkedHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Timer runTimer;
+    private final Counter rejected;
+
+    public GenerationJobService(ImageGenerationOrchestrator orchestrator,
+            @Qualifier("generationExecutor") Executor executor,
+            JobProperties properties,
+            MeterRegistry meterRegistry) {
+        this.orchestrator = orchestrator;
+        this.executor = executor;
+        this.properties = properties;
+
+        this.waitTimer = Timer.builder("zpcs.jobs.wait").register(meterRegistry);
+        this.runTimer = Timer.builder("zpcs.jobs.duration").register(meterRegistry);
+        this.rejected = meterRegistry.counter("zpcs.jobs.rejected");
+        Gauge.builder("zpcs.jobs.queued", queued, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("zpcs.jobs.running", running, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("zpcs.jobs.table.size", this, GenerationJobService::size).register(meterRegistry);
+    }
+
+    public GenerationJob submit(GenerateImageRequest request) {
+        if (queued.incrementAndGet() > properties.getMaxQueued()) {
+            queued.decrementAndGet();
+            throw reject();
+        }
+
+        GenerationJob job = new GenerationJob("job_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12),
+                request);
+        try {
+            register(job);
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            // The executor rejects rather than running the job on this thread; nobody will poll it
+            queued.decrementAndGet();
+            unregister(job);
+            throw reject();
+        } catch (RuntimeException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+        log.info("Job {} queued (queued={})", job.getId(), queued.get());
+        return job;
+    }
+
+    public GenerationJob get(String id) {
+        lock.lock();
+        try {
+            GenerationJob job = jobs.get(id);
+            if (job == null) {
+                throw new JobNotFoundException(id);
+            }
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens an SSE stream for a job; the current state is sent immediately
+     * and the stream completes once the job is done or failed.
+     */
+    public SseEmitter subscribe(String id) {
+        GenerationJob job = get(id);
+        SseEmitter emitter = new SseEmitter(properties.getSseTimeoutMs());
+        Runnable unsubscribe = () -> job.getSubscribers().remove(emitter);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+
+        job.getSubscribers().add(emitter);
+        send(job, emitter, toResponse(job));
+        return emitter;
+    }
+
+    public JobStatusResponse toResponse(GenerationJob job) {
+        String statusUrl = "/api/v1/jobs/" + job.getId();
+        return JobStatusResponse.builder()
+                .id(job.getId())
+                .state(job.getState())
+                .submittedAt(job.getSubmittedAt())
+                .updatedAt(job.getUpdatedAt())
+                .statusUrl(statusUrl)
+                .eventsUrl(statusUrl + "/events")
+                .result(job.getResult())
+                .errorCode(job.getErrorCode())
+                .errorMessage(job.getErrorMessage())
+                .build();
+    }
+
+    private void run(GenerationJob job) {
+        queued.decrementAndGet();
+        running.incrementAndGet();
+        waitTimer.record(Duration.between(job.getSubmittedAt(), Instant.now()));
+        long start = System.nanoTime();
+        try {
+            GeneratedImageResponse response = orchestrator.generate(job.getRequest(),
+                    stage -> update(job, JobState.of(stage)));
+            job.succeed(response);
+        } catch (ZpcsException e) {
+            log.warn("Job {} failed: {} - {}", job.getId(), e.getErrorCode(), e.getMessage());
+            job.fail(e.getErrorCode(), e.getMessage());
+        } catch (Exception e) {
+            log.error("Job {} failed unexpectedly", job.getId(), e);
+            job.fail("INTERNAL_ERROR", "An unexpected error occurred");
+        } finally {
+            running.decrementAndGet();
+            runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        publish(job);
+    }
+
+    private void update(GenerationJob job, JobState state) {
+        job.transition(state);
+        publish(job);
+    }
+
+    private void publish(GenerationJob job) {
+        if (job.getSubscribers().isEmpty()) {
+            return;
+        }
+        JobStatusResponse response = toResponse(job);
+        for (SseEmitter emitter : job.getSubscribers()) {
+            send(job, emitter, response);
+        }
+    }
+
+    private void send(GenerationJob job, SseEmitter emitter, JobStatusResponse response) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(response.getState().name().toLowerCase())
+                    .data(response));
+            if (response.getState().isTerminal()) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the stream already completed
+            job.getSubscribers().remove(emitter);
+        }
+    }
+
+    private void register(GenerationJob job) {
+        lock.lock();
+        try {
+            evictExpired();
+            if (jobs.size() >= properties.getMaxJobs() && !evictOldestFinished()) {
+                throw reject();
+            }
+            jobs.put(job.getId(), job);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void unregister(GenerationJob job) {
+        lock.lock();
+        try {
+            jobs.remove(job.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minusSeconds(properties.getRetentionSeconds());
+        jobs.values().removeIf(j -> j.getState().isTerminal() && j.getUpdatedAt().isBefore(cutoff));
+    }
+
+    private boolean evictOldestFinished() {
+        Iterator<GenerationJob> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().getState().isTerminal()) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int size() {
+        lock.lock();
+        try {
+            return jobs.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private QuotaExceededException reject() {
+        rejected.increment();
+        double meanSeconds = runTimer.mean(TimeUnit.SECONDS);
+        return new QuotaExceededException((int) Math.max(1, Math.ceil(meanSeconds)));
+    }
+}
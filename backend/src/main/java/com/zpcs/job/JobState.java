@@ -0,0 +1,24 @@
+package com.zpcs.job;
+
+import com.zpcs.orchestrator.GenerationStage;
+
+public enum JobState {
+    QUEUED,
+    COMPOSING,
+    CALLING_MODEL,
+    PERSISTING,
+    DONE,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == DONE || this == FAILED;
+    }
+
+    public static JobState of(GenerationStage stage) {
+        return switch (stage) {
+            case COMPOSING -> COMPOSING;
+            case CALLING_MODEL -> CALLING_MODEL;
+            case PERSISTING -> PERSISTING;
+        };
+    }
+}
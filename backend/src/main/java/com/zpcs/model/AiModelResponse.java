@@ -1,12 +1,14 @@
 package com.zpcs.model;
 
+import com.zpcs.buffer.PooledBuffer;
 import lombok.Builder;
 import lombok.Value;
 
 @Value
 @Builder
 public class AiModelResponse {
-    byte[] imageData;
+    /** Owned by the holder, who must release it once persisted. */
+    PooledBuffer imageData;
     String mimeType;
     long processingTimeMs;
 }
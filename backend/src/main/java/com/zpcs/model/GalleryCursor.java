@@ -0,0 +1,44 @@
+package com.zpcs.model;
+
+import com.zpcs.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position in the time-ordered gallery: the (createdAt, id) key of the last
+ * record a client has seen. Newest first; the id breaks ties between records
+ * created in the same instant. Sent to clients as an opaque token.
+ */
+public record GalleryCursor(LocalDateTime createdAt, String id) {
+
+    /** Gallery order: newest first, then by id descending. */
+    public static final Comparator<GalleryCursor> ORDER = Comparator
+            .comparing(GalleryCursor::createdAt, Comparator.reverseOrder())
+            .thenComparing(GalleryCursor::id, Comparator.reverseOrder());
+
+    public static GalleryCursor of(ImageRecord record) {
+        return new GalleryCursor(record.getCreatedAt(), record.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static GalleryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new InvalidCursorException(token);
+            }
+            return new GalleryCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException(token);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.zpcs.model;
+
+import com.zpcs.dto.request.GenerateImageRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Canonical fingerprint of everything that determines a model call's output:
+ * operation mode, composed prompt, model config, style intensity and the
+ * source image digest. Two contexts with equal fingerprints would send the
+ * model an identical request.
+ */
+public final class GenerationFingerprint {
+
+    private static final byte SEPARATOR = 0;
+
+    private GenerationFingerprint() {
+    }
+
+    public static String of(GenerationContext context) {
+        MessageDigest digest = sha256();
+        GenerateImageRequest request = context.getOriginalRequest();
+        GeminiRequestConfig config = context.getAiConfig();
+
+        update(digest, request.getOperationMode());
+        update(digest, context.getPrompt());
+        update(digest, config.getModel());
+        update(digest, config.getThinkingLevel());
+        update(digest, config.getAspectRatio());
+        update(digest, config.getImageWidth());
+        update(digest, config.getImageHeight());
+        update(digest, request.getStyleIntensity());
+        update(digest, context.getSourceImageBytes() != null ? digest(context.getSourceImageBytes()) : null);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hex SHA-256 of raw bytes, used for source images and stored content.
+     */
+    public static String digest(byte[] data) {
+        return HexFormat.of().formatHex(sha256().digest(data));
+    }
+
+    private static void update(MessageDigest digest, Object value) {
+        if (value != null) {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update(SEPARATOR);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.zpcs.model;
 
+import com.zpcs.buffer.PooledBuffer;
 import lombok.Builder;
 import lombok.Value;
 
@@ -8,7 +9,8 @@ import java.util.Map;
 @Value
 @Builder
 public class GenerationResult {
-    byte[] imageData;
+    /** Owned by the holder, who must release it once persisted. */
+    PooledBuffer imageData;
     String mimeType;
     Map<String, Object> modelMetadata;
 }
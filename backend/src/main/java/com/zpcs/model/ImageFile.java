@@ -0,0 +1,15 @@
+package com.zpcs.model;
+
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.core.io.Resource;
+
+/**
+ * A stored image together with the record describing it.
+ */
+@Value
+@Builder
+public class ImageFile {
+    ImageRecord record;
+    Resource resource;
+}
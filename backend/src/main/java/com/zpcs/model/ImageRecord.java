@@ -7,7 +7,7 @@ import lombok.Value;
 import java.time.LocalDateTime;
 
 @Value
-@Builder
+@Builder(toBuilder = true)
 public class ImageRecord {
     String id;
     String filePath;
@@ -15,4 +15,9 @@ public class ImageRecord {
     OperationMode operationMode;
     long generationTimeMs;
     LocalDateTime createdAt;
+    /** Null for records that predate it; serve as PNG. */
+    String mimeType;
+    /** Hex SHA-256 of the stored bytes, or null when unknown. */
+    String contentHash;
+    long sizeBytes;
 }
@@ -1,6 +1,8 @@
 package com.zpcs.orchestrator;
 
 import com.zpcs.config.GeminiProperties;
+import com.zpcs.cache.GenerationResultCache;
+import com.zpcs.cache.HotImageCache;
 import com.zpcs.dto.request.EditImageRequest;
 import com.zpcs.dto.request.GenerateImageRequest;
 import com.zpcs.dto.response.GeneratedImageResponse;
@@ -12,6 +14,7 @@ import com.zpcs.model.enums.AspectRatio;
 import com.zpcs.model.enums.ResolutionQuality;
 import com.zpcs.model.enums.ThinkingLevel;
 import com.zpcs.prompt.PromptComposer;
+import com.zpcs.storage.ContentHash;
 import com.zpcs.storage.ImageRecordRepository;
 import com.zpcs.storage.StorageService;
 import com.zpcs.strategy.GenerationStrategy;
@@ -19,9 +22,11 @@ import com.zpcs.strategy.GenerationStrategyFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.UUID;
@@ -34,13 +39,103 @@ public class DefaultImageGenerationOrchestrator implements ImageGenerationOrches
         private final GeminiProperties geminiProperties;
         private final PromptComposer promptComposer;
         private final GenerationStrategyFactory strategyFactory;
+        private final RequestCoalescer coalescer;
+        private final GenerationResultCache resultCache;
+        private final HotImageCache hotImageCache;
         private final StorageService storageService;
         private final ImageRecordRepository repository;
         private final ApplicationEventPublisher eventPublisher;
 
         @Override
         public GeneratedImageResponse generate(GenerateImageRequest request) {
+                return generate(request, GenerationProgressListener.NONE);
+        }
+
+        @Override
+        public GeneratedImageResponse generate(GenerateImageRequest request, GenerationProgressListener listener) {
                 long startTime = System.currentTimeMillis();
+
+                // 1-2. Compose prompt and build context
+                listener.onStage(GenerationStage.COMPOSING);
+                GenerationContext context = prepare(request);
+
+                // 3. Serve from cache, or resolve & execute strategy (Strategy Pattern)
+                String fingerprint = GenerationFingerprint.of(context);
+                GenerationResult cached = resultCache.lookup(fingerprint, request).orElse(null);
+                GenerationResult result = cached;
+                if (result == null) {
+                        listener.onStage(GenerationStage.CALLING_MODEL);
+                        GenerationStrategy strategy = strategyFactory.getStrategy(request.getOperationMode());
+                        result = coalescer.execute(strategy, context, fingerprint);
+                }
+
+                // 4-6. Persist, publish and map to response
+                listener.onStage(GenerationStage.PERSISTING);
+                try {
+                        GeneratedImageResponse response = complete(context, result, startTime);
+                        if (cached == null) {
+                                resultCache.put(fingerprint, request, result, context.getId());
+                        }
+                        return response;
+                } finally {
+                        result.getImageData().release();
+                }
+        }
+
+        @Override
+        public Mono<GeneratedImageResponse> generateReactive(GenerateImageRequest request) {
+                return Mono.defer(() -> {
+                        long startTime = System.currentTimeMillis();
+                        GenerationContext context = prepare(request);
+                        String fingerprint = GenerationFingerprint.of(context);
+                        Mono<GeneratedImageResponse> generated = strategyFactory
+                                        .getStrategy(request.getOperationMode())
+                                        .executeReactive(context)
+                                        // Storage and repository writes block; keep them off the event loop
+                                        .publishOn(Schedulers.boundedElastic())
+                                        .map(result -> {
+                                                try {
+                                                        GeneratedImageResponse response = complete(context, result,
+                                                                        startTime);
+                                                        resultCache.put(fingerprint, request, result, context.getId());
+                                                        return response;
+                                                } finally {
+                                                        result.getImageData().release();
+                                                }
+                                        });
+                        return Mono.fromCallable(() -> resultCache.lookup(fingerprint, request))
+                                        .subscribeOn(Schedulers.boundedElastic())
+                                        .flatMap(cached -> cached
+                                                        .map(result -> Mono.fromCallable(
+                                                                        () -> complete(context, result, startTime)))
+                                                        .orElse(generated));
+                });
+        }
+
+        @Override
+        public GeneratedImageResponse edit(EditImageRequest request) {
+                return generate(toGenerateRequest(request));
+        }
+
+        @Override
+        public Mono<GeneratedImageResponse> editReactive(EditImageRequest request) {
+                return generateReactive(toGenerateRequest(request));
+        }
+
+        @Override
+        public ImageRecord getImageRecord(String id) {
+                return repository.findById(id).orElseThrow(() -> new ImageNotFoundException(id));
+        }
+
+        @Override
+        public ImageFile getImageFile(String id) {
+                return ImageFile.builder()
+                                .record(getImageRecord(id))
+                                .resource(storageService.load(id))
+                                .build();
+        }
+
+        private GenerationContext prepare(GenerateImageRequest request) {
                 String imageId = "img_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
 
                 // 1. Compose prompt (Chain of Responsibility)
@@ -52,29 +147,36 @@ public class DefaultImageGenerationOrchestrator implements ImageGenerationOrches
                         sourceBytes = Base64.getDecoder().decode(request.getSourceImageBase64());
                 }
 
-                GenerationContext context = GenerationContext.builder()
+                return GenerationContext.builder()
                                 .id(imageId)
                                 .prompt(prompt)
                                 .originalRequest(request)
                                 .aiConfig(buildAiConfig(request))
                                 .sourceImageBytes(sourceBytes)
                                 .build();
+        }
 
-                // 3. Resolve & execute strategy (Strategy Pattern)
-                GenerationStrategy strategy = strategyFactory.getStrategy(request.getOperationMode());
-                GenerationResult result = strategy.execute(context);
+        private GeneratedImageResponse complete(GenerationContext context, GenerationResult result, long startTime) {
+                String imageId = context.getId();
+                GenerateImageRequest request = context.getOriginalRequest();
 
                 // 4. Persist image (Repository Pattern)
-                String filePath = storageService.save(result.getImageData(), imageId);
+                ByteBuffer imageData = result.getImageData().nioBuffer();
+                String contentHash = ContentHash.sha256(imageData);
+                String filePath = storageService.save(imageData, imageId, contentHash);
+                hotImageCache.put(imageId, result.getImageData());
 
                 long elapsed = System.currentTimeMillis() - startTime;
                 ImageRecord record = ImageRecord.builder()
                                 .id(imageId)
                                 .filePath(filePath)
-                                .prompt(prompt)
+                                .prompt(context.getPrompt())
                                 .operationMode(request.getOperationMode())
                                 .generationTimeMs(elapsed)
                                 .createdAt(LocalDateTime.now())
+                                .mimeType(result.getMimeType())
+                                .contentHash(contentHash)
+                                .sizeBytes(imageData.remaining())
                                 .build();
                 repository.save(record);
 
@@ -82,13 +184,12 @@ public class DefaultImageGenerationOrchestrator implements ImageGenerationOrches
                 eventPublisher.publishEvent(new ImageGeneratedEvent(this, record));
 
                 // 6. Map to response
-                return toResponse(imageId, prompt, elapsed, request);
+                return toResponse(imageId, context.getPrompt(), elapsed, request);
         }
 
-        @Override
-        public GeneratedImageResponse edit(EditImageRequest request) {
+        private GenerateImageRequest toGenerateRequest(EditImageRequest request) {
                 // Convert edit request to generate request for reuse
-                GenerateImageRequest generateRequest = GenerateImageRequest.builder()
+                return GenerateImageRequest.builder()
                                 .subject(request.getSubject())
                                 .operationMode(request.getOperationMode())
                                 .aestheticStyle(request.getAestheticStyle())
@@ -102,14 +203,6 @@ public class DefaultImageGenerationOrchestrator implements ImageGenerationOrches
                                                 : ThinkingLevel.CREATIVE)
                                 .sourceImageBase64(request.getSourceImageBase64())
                                 .build();
-                return generate(generateRequest);
-        }
-
-        @Override
-        public Resource getImageFile(String id) {
-                return repository.findById(id)
-                                .map(record -> storageService.load(id))
-                                .orElseThrow(() -> new ImageNotFoundException(id));
         }
 
         private GeminiRequestConfig buildAiConfig(GenerateImageRequest req) {
@@ -0,0 +1,13 @@
+package com.zpcs.orchestrator;
+
+/**
+ * Callback for callers that want to follow a generation as it progresses.
+ */
+@FunctionalInterface
+public interface GenerationProgressListener {
+
+    GenerationProgressListener NONE = stage -> {
+    };
+
+    void onStage(GenerationStage stage);
+}
@@ -0,0 +1,10 @@
+package com.zpcs.orchestrator;
+
+/**
+ * Steps of a generation run, reported to a {@link GenerationProgressListener}.
+ */
+public enum GenerationStage {
+    COMPOSING,
+    CALLING_MODEL,
+    PERSISTING
+}
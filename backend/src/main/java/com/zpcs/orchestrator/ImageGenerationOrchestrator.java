@@ -3,16 +3,27 @@ package com.zpcs.orchestrator;
 import com.zpcs.dto.request.EditImageRequest;
 import com.zpcs.dto.request.GenerateImageRequest;
 import com.zpcs.dto.response.GeneratedImageResponse;
-import org.springframework.core.io.Resource;
+import com.zpcs.model.ImageFile;
+import com.zpcs.model.ImageRecord;
+import reactor.core.publisher.Mono;
 
 /**
  * Single entry point for generation workflows (DIP).
  * Controller depends on this interface, not the concrete orchestrator.
+ * The reactive variants never block the calling thread on the model call.
  */
 public interface ImageGenerationOrchestrator {
     GeneratedImageResponse generate(GenerateImageRequest request);
 
+    GeneratedImageResponse generate(GenerateImageRequest request, GenerationProgressListener listener);
+
     GeneratedImageResponse edit(EditImageRequest request);
 
-    Resource getImageFile(String id);
+    Mono<GeneratedImageResponse> generateReactive(GenerateImageRequest request);
+
+    Mono<GeneratedImageResponse> editReactive(EditImageRequest request);
+
+    ImageRecord getImageRecord(String id);
+
+    ImageFile getImageFile(String id);
 }
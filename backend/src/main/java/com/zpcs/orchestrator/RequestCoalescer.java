@@ -0,0 +1,115 @@
+package com.zpcs.orchestrator;
+
+import com.zpcs.config.GenerationProperties;
+import com.zpcs.exception.GeminiApiException;
+import com.zpcs.model.GenerationContext;
+import com.zpcs.model.GenerationResult;
+import com.zpcs.strategy.GenerationStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single-flight layer in front of {@link GenerationStrategy#execute}.
+ * The first caller with a given {@link com.zpcs.model.GenerationFingerprint} becomes the
+ * leader and calls the model; identical requests arriving while it is in
+ * flight wait for and share its result instead of calling again.
+ * Callers still persist their own image and record.
+ * Every caller receives its own reference to the shared image buffer; a
+ * follower that gives up waiting has its reference released for it.
+ */
+@Component
+@Slf4j
+public class RequestCoalescer {
+
+    private final boolean enabled;
+    private final long waitSeconds;
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public RequestCoalescer(GenerationProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isCoalesce();
+        this.waitSeconds = properties.getCoalesceWaitSeconds();
+        this.hits = meterRegistry.counter("zpcs.coalesce.requests", "result", "hit");
+        this.misses = meterRegistry.counter("zpcs.coalesce.requests", "result", "miss");
+        Gauge.builder("zpcs.coalesce.inflight", inFlight, ConcurrentMap::size).register(meterRegistry);
+    }
+
+    public GenerationResult execute(GenerationStrategy strategy, GenerationContext context, String key) {
+        if (!enabled) {
+            return strategy.execute(context);
+        }
+
+        Flight created = new Flight();
+        Flight flight = inFlight.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return created;
+            }
+            existing.followers++;
+            return existing;
+        });
+        if (flight != created) {
+            hits.increment();
+            log.debug("Coalesced generation id={} onto in-flight request", context.getId());
+            return await(flight.result);
+        }
+
+        misses.increment();
+        GenerationResult result;
+        try {
+            result = strategy.execute(context);
+        } catch (RuntimeException | Error e) {
+            // Never leave a dead flight behind for followers to join
+            inFlight.remove(key, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+        // Once removed no one else can join, so the follower count is final
+        inFlight.remove(key, flight);
+        for (int i = 0; i < flight.followers; i++) {
+            result.getImageData().retain();
+        }
+        flight.result.complete(result);
+        return result;
+    }
+
+    private static final class Flight {
+        final CompletableFuture<GenerationResult> result = new CompletableFuture<>();
+        /** Guarded by the map's per-key locking. */
+        int followers;
+    }
+
+    private GenerationResult await(CompletableFuture<GenerationResult> leader) {
+        try {
+            return leader.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new GeminiApiException("Coalesced generation failed", e.getCause());
+        } catch (TimeoutException e) {
+            abandon(leader);
+            throw new GeminiApiException("Coalesced generation did not finish within " + waitSeconds + " seconds",
+                    0, true, e);
+        } catch (InterruptedException e) {
+            abandon(leader);
+            Thread.currentThread().interrupt();
+            throw new GeminiApiException("Interrupted while waiting for coalesced generation", e);
+        }
+    }
+
+    /** Drops the reference the leader retains for a follower that stopped waiting. */
+    private static void abandon(CompletableFuture<GenerationResult> leader) {
+        leader.thenAccept(result -> result.getImageData().release());
+    }
+}
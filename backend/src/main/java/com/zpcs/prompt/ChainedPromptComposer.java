@@ -25,7 +25,7 @@ public class ChainedPromptComposer implements PromptComposer {
         PromptBuilder builder = new PromptBuilder();
         handlers.forEach(handler -> handler.handle(request, builder));
         String prompt = builder.build();
-        log.info("Composed prompt ({} handlers): {}", handlers.size(), prompt);
+        log.debug("Composed prompt ({} handlers): {}", handlers.size(), prompt);
         return prompt;
     }
 }
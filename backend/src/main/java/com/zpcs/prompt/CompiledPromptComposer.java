@@ -0,0 +1,271 @@
+package com.zpcs.prompt;
+
+import com.zpcs.dto.request.GenerateImageRequest;
+import com.zpcs.model.enums.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Prompt composer that runs the handler chain once per enum constant at
+ * startup instead of once per request.
+ * Each handler is probed with requests that set a single option; its
+ * output for every constant goes into an ordinal-indexed table, and a
+ * request is then composed by table lookups into one presized builder,
+ * reading each option straight off the request.
+ * Because the tables hold the handlers' own output, prompts match
+ * {@link ChainedPromptComposer} exactly. A handler whose output depends
+ * on more than one option, alone or in any pair, or that changes the
+ * subject, cannot be tabulated and makes the composer fall back to the chain.
+ */
+@Service
+@Primary
+@Slf4j
+public class CompiledPromptComposer implements PromptComposer {
+
+    private static final String SEPARATOR = ", ";
+    private static final String[] PROBE_SUBJECTS = { "\u0000subject-a", "\u0000subject-b" };
+
+    /** The request options a handler's fragment can depend on. */
+    private enum Slot {
+        OPERATION_MODE(OperationMode.values()),
+        AESTHETIC_STYLE(AestheticStyle.values()),
+        LIGHTING(LightingSetup.values()),
+        CAMERA_COMPOSITION(CameraComposition.values()),
+        COLOR_PALETTE(ColorPalette.values()),
+        LENS_EFFECT(LensEffect.values()),
+        ASPECT_RATIO(AspectRatio.values()),
+        RESOLUTION(ResolutionQuality.values()),
+        THINKING_LEVEL(ThinkingLevel.values()),
+        STYLE_INTENSITY(StyleIntensity.values());
+
+        private final Enum<?>[] constants;
+
+        Slot(Enum<?>[] constants) {
+            this.constants = constants;
+        }
+
+        Enum<?>[] constants() {
+            return constants;
+        }
+
+        Enum<?> get(GenerateImageRequest request) {
+            return switch (this) {
+                case OPERATION_MODE -> request.getOperationMode();
+                case AESTHETIC_STYLE -> request.getAestheticStyle();
+                case LIGHTING -> request.getLighting();
+                case CAMERA_COMPOSITION -> request.getCameraComposition();
+                case COLOR_PALETTE -> request.getColorPalette();
+                case LENS_EFFECT -> request.getLensEffect();
+                case ASPECT_RATIO -> request.getAspectRatio();
+                case RESOLUTION -> request.getResolution();
+                case THINKING_LEVEL -> request.getThinkingLevel();
+                case STYLE_INTENSITY -> request.getStyleIntensity();
+            };
+        }
+
+        void set(GenerateImageRequest request, Enum<?> value) {
+            switch (this) {
+                case OPERATION_MODE -> request.setOperationMode((OperationMode) value);
+                case AESTHETIC_STYLE -> request.setAestheticStyle((AestheticStyle) value);
+                case LIGHTING -> request.setLighting((LightingSetup) value);
+                case CAMERA_COMPOSITION -> request.setCameraComposition((CameraComposition) value);
+                case COLOR_PALETTE -> request.setColorPalette((ColorPalette) value);
+                case LENS_EFFECT -> request.setLensEffect((LensEffect) value);
+                case ASPECT_RATIO -> request.setAspectRatio((AspectRatio) value);
+                case RESOLUTION -> request.setResolution((ResolutionQuality) value);
+                case THINKING_LEVEL -> request.setThinkingLevel((ThinkingLevel) value);
+                case STYLE_INTENSITY -> request.setStyleIntensity((StyleIntensity) value);
+            }
+        }
+    }
+
+    /**
+     * Fragments of one handler: by ordinal of its option, or {@code whenNull}
+     * when the option is unset. A null entry means the handler adds nothing.
+     */
+    private record Step(Slot slot, String[] byOrdinal, String whenNull) {
+        String fragment(GenerateImageRequest request) {
+            if (slot == null) {
+                return whenNull;
+            }
+            Enum<?> value = slot.get(request);
+            return value == null ? whenNull : byOrdinal[value.ordinal()];
+        }
+    }
+
+    private final Step[] steps;
+    private final int subjectRepeats;
+    private final int maxFragmentChars;
+    private final ChainedPromptComposer fallback;
+
+    public CompiledPromptComposer(List<PromptFragmentHandler> handlers) {
+        List<Step> compiled = new ArrayList<>(handlers.size());
+        int subjects = 0;
+        int maxChars = 0;
+        boolean complete = true;
+        for (PromptFragmentHandler handler : handlers) {
+            Integer repeats = subjectRepeats(handler);
+            Step step = repeats == null ? null : compile(handler);
+            if (step == null) {
+                log.warn("Prompt handler {} cannot be precompiled; composing through the handler chain",
+                        handler.getClass().getSimpleName());
+                complete = false;
+                break;
+            }
+            subjects += repeats;
+            if (step.whenNull() != null || step.slot() != null) {
+                compiled.add(step);
+                maxChars += SEPARATOR.length() + maxLength(step);
+            }
+        }
+        this.steps = complete ? compiled.toArray(Step[]::new) : null;
+        this.subjectRepeats = subjects;
+        this.maxFragmentChars = maxChars;
+        this.fallback = complete ? null : new ChainedPromptComposer(handlers);
+        if (complete) {
+            log.info("Precompiled {} prompt handlers into {} fragment tables", handlers.size(), steps.length);
+        }
+    }
+
+    @Override
+    public String compose(GenerateImageRequest request) {
+        if (fallback != null) {
+            return fallback.compose(request);
+        }
+        String subject = request.getSubject();
+        int subjectLength = subject != null ? subject.length() : 4;
+        StringBuilder prompt = new StringBuilder(subjectLength * subjectRepeats + maxFragmentChars);
+        for (int i = 0; i < subjectRepeats; i++) {
+            prompt.append(subject);
+        }
+        for (Step step : steps) {
+            String fragment = step.fragment(request);
+            if (fragment != null) {
+                prompt.append(SEPARATOR).append(fragment);
+            }
+        }
+        String composed = prompt.toString();
+        log.debug("Composed prompt: {}", composed);
+        return composed;
+    }
+
+    /**
+     * How many times the handler writes the request subject verbatim, or
+     * null if its subject output is anything else or its fragments depend on it.
+     */
+    private static Integer subjectRepeats(PromptFragmentHandler handler) {
+        Integer repeats = null;
+        List<String> fragments = null;
+        for (String subject : PROBE_SUBJECTS) {
+            PromptBuilder builder = probe(handler, request(subject));
+            if (builder == null) {
+                return null;
+            }
+            String written = builder.subjectText();
+            if (!written.equals(subject.repeat(written.length() / subject.length()))) {
+                return null;
+            }
+            int count = written.length() / subject.length();
+            if ((repeats != null && repeats != count)
+                    || (fragments != null && !fragments.equals(builder.fragments()))) {
+                return null;
+            }
+            repeats = count;
+            fragments = builder.fragments();
+        }
+        return repeats;
+    }
+
+    private static Step compile(PromptFragmentHandler handler) {
+        String whenNull = fragment(handler, request(PROBE_SUBJECTS[0]));
+        Slot dependency = null;
+        String[] table = null;
+        for (Slot slot : Slot.values()) {
+            String[] candidate = new String[slot.constants().length];
+            boolean varies = false;
+            for (Enum<?> constant : slot.constants()) {
+                GenerateImageRequest request = request(PROBE_SUBJECTS[0]);
+                slot.set(request, constant);
+                PromptBuilder builder = probe(handler, request);
+                if (builder == null) {
+                    return null;
+                }
+                String fragment = join(builder.fragments());
+                candidate[constant.ordinal()] = fragment;
+                varies |= !Objects.equals(fragment, whenNull);
+            }
+            if (varies) {
+                if (dependency != null) {
+                    return null;
+                }
+                dependency = slot;
+                table = candidate;
+            }
+        }
+        Step step = new Step(dependency, table, whenNull);
+        return predictsPairs(handler, step) ? step : null;
+    }
+
+    /**
+     * Whether the table still predicts the handler's output with any two
+     * options set together. Catches handlers that only react to a
+     * combination, which single-option probes cannot see.
+     */
+    private static boolean predictsPairs(PromptFragmentHandler handler, Step step) {
+        Slot[] slots = Slot.values();
+        for (int i = 0; i < slots.length; i++) {
+            for (int j = i + 1; j < slots.length; j++) {
+                for (Enum<?> first : slots[i].constants()) {
+                    for (Enum<?> second : slots[j].constants()) {
+                        GenerateImageRequest request = request(PROBE_SUBJECTS[0]);
+                        slots[i].set(request, first);
+                        slots[j].set(request, second);
+                        PromptBuilder builder = probe(handler, request);
+                        if (builder == null || !Objects.equals(join(builder.fragments()), step.fragment(request))) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String fragment(PromptFragmentHandler handler, GenerateImageRequest request) {
+        PromptBuilder builder = probe(handler, request);
+        return builder == null ? null : join(builder.fragments());
+    }
+
+    private static PromptBuilder probe(PromptFragmentHandler handler, GenerateImageRequest request) {
+        PromptBuilder builder = new PromptBuilder();
+        try {
+            handler.handle(request, builder);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return builder;
+    }
+
+    private static GenerateImageRequest request(String subject) {
+        return GenerateImageRequest.builder().subject(subject).build();
+    }
+
+    private static String join(List<String> fragments) {
+        return fragments.isEmpty() ? null : String.join(SEPARATOR, fragments);
+    }
+
+    private static int maxLength(Step step) {
+        int max = step.whenNull() != null ? step.whenNull().length() : 0;
+        if (step.byOrdinal() != null) {
+            for (String fragment : step.byOrdinal()) {
+                max = Math.max(max, fragment != null ? fragment.length() : 0);
+            }
+        }
+        return max;
+    }
+}
@@ -22,6 +22,14 @@ public class PromptBuilder {
         return this;
     }
 
+    String subjectText() {
+        return subject.toString();
+    }
+
+    List<String> fragments() {
+        return fragments;
+    }
+
     public String build() {
         if (fragments.isEmpty())
             return subject.toString();
@@ -0,0 +1,45 @@
+package com.zpcs.reconcile;
+
+import com.zpcs.config.ReconcileProperties;
+import com.zpcs.dto.response.ReconciliationStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reconciliation progress for actuator health. With reconcile.gate-readiness
+ * it reports OUT_OF_SERVICE until the startup run has finished, which keeps
+ * the instance out of the readiness group meanwhile.
+ */
+@Component("reconciliation")
+@RequiredArgsConstructor
+public class ReconciliationHealthIndicator implements HealthIndicator {
+
+    private final StorageReconciler reconciler;
+    private final ReconcileProperties properties;
+
+    @Override
+    public Health health() {
+        ReconciliationStatus status = reconciler.status();
+        Health.Builder builder = properties.isGateReadiness() && !reconciler.isStartupComplete()
+                ? Health.outOfService()
+                : Health.up();
+        builder.withDetail("state", status.getState())
+                .withDetail("filesScanned", status.getFilesScanned())
+                .withDetail("recordsChecked", status.getRecordsChecked())
+                .withDetail("recordsRebuilt", status.getRecordsRebuilt())
+                .withDetail("recordsRemoved", status.getRecordsRemoved())
+                .withDetail("renditionsRemoved", status.getRenditionsRemoved());
+        if (status.getStartedAt() != null) {
+            builder.withDetail("startedAt", status.getStartedAt());
+        }
+        if (status.getFinishedAt() != null) {
+            builder.withDetail("finishedAt", status.getFinishedAt());
+        }
+        if (status.getError() != null) {
+            builder.withDetail("error", status.getError());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,226 @@
+package com.zpcs.reconcile;
+
+import com.zpcs.config.ReconcileProperties;
+import com.zpcs.derivative.Rendition;
+import com.zpcs.dto.response.ReconciliationStatus;
+import com.zpcs.model.GalleryCursor;
+import com.zpcs.model.ImageRecord;
+import com.zpcs.storage.ImageRecordRepository;
+import com.zpcs.storage.StorageService;
+import com.zpcs.storage.StoredImage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Brings image records back in line with stored files: orphan files get a
+ * record rebuilt from their attributes, and records whose file is gone are
+ * removed, as are renditions whose original is gone. Runs in the
+ * background after startup and on demand, one run at a time, walking
+ * storage and then the records in parallel.
+ * Anything younger than the grace period is skipped, since a generation may
+ * have written its file but not yet its record.
+ */
+@Service
+@Slf4j
+public class StorageReconciler {
+
+    private final StorageService storageService;
+    private final ImageRecordRepository repository;
+    private final ReconcileProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Run current;
+    private volatile boolean startupComplete;
+
+    public StorageReconciler(StorageService storageService, ImageRecordRepository repository,
+            ReconcileProperties properties) {
+        this.storageService = storageService;
+        this.repository = repository;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isOnStartup()) {
+            start();
+        } else {
+            startupComplete = true;
+        }
+    }
+
+    /**
+     * Starts a run unless one is in progress; returns the status of the active run.
+     */
+    public ReconciliationStatus start() {
+        lock.lock();
+        try {
+            Run run = current;
+            if (run != null && run.state == ReconciliationStatus.State.RUNNING) {
+                return run.toStatus();
+            }
+            Run started = new Run(properties.getMaxReportedIds());
+            current = started;
+            Thread.ofPlatform().name("reconcile").daemon(true).start(() -> execute(started));
+            return started.toStatus();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ReconciliationStatus status() {
+        Run run = current;
+        return run != null ? run.toStatus()
+                : ReconciliationStatus.builder().state(ReconciliationStatus.State.IDLE).build();
+    }
+
+    /** True once the startup run has finished, successfully or not. */
+    public boolean isStartupComplete() {
+        return startupComplete;
+    }
+
+    private void execute(Run run) {
+        log.info("Reconciliation started");
+        Instant cutoff = run.startedAt.minusSeconds(properties.getGraceSeconds());
+        ForkJoinPool pool = new ForkJoinPool(properties.getParallelism());
+        try {
+            // Parallel streams run in the pool that invokes them
+            pool.submit(() -> {
+                try (Stream<StoredImage> images = storageService.list()) {
+                    images.parallel().forEach(image -> adoptOrphan(run, image, cutoff));
+                }
+            }).get();
+            removeDangling(run, LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault()), pool);
+            run.finish(ReconciliationStatus.State.COMPLETED, null);
+            log.info("Reconciliation completed: {} files scanned, {} records checked, {} rebuilt, {} removed, "
+                    + "{} stranded renditions removed", run.filesScanned.get(), run.recordsChecked.get(),
+                    run.recordsRebuilt.get(), run.recordsRemoved.get(), run.renditionsRemoved.get());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Reconciliation failed", e);
+            run.finish(ReconciliationStatus.State.FAILED, e.getMessage());
+        } finally {
+            pool.shutdown();
+            startupComplete = true;
+        }
+    }
+
+    private void adoptOrphan(Run run, StoredImage image, Instant cutoff) {
+        run.filesScanned.incrementAndGet();
+        if (image.lastModified().isAfter(cutoff)) {
+            return;
+        }
+        if (Rendition.isDerivedId(image.id())) {
+            removeStrandedRendition(run, image);
+            return;
+        }
+        if (repository.findById(image.id()).isPresent()) {
+            return;
+        }
+        // The listing may be stale: a delete removes the record first, then the file
+        if (!storageService.exists(image.id())) {
+            return;
+        }
+        repository.save(ImageRecord.builder()
+                .id(image.id())
+                .filePath(image.location())
+                .createdAt(LocalDateTime.ofInstant(image.lastModified(), ZoneId.systemDefault()))
+                .sizeBytes(image.sizeBytes())
+                .build());
+        run.recordsRebuilt.incrementAndGet();
+        run.sample(run.rebuiltIds, image.id());
+    }
+
+    /** A render that finished after its image was deleted leaves the rendition behind. */
+    private void removeStrandedRendition(Run run, StoredImage rendition) {
+        if (storageService.exists(Rendition.originalId(rendition.id()))) {
+            return;
+        }
+        if (storageService.delete(rendition.id())) {
+            run.renditionsRemoved.incrementAndGet();
+        }
+    }
+
+    private void removeDangling(Run run, LocalDateTime cutoff, ForkJoinPool pool) throws Exception {
+        // Keyset pages stay valid while records behind the cursor are deleted
+        GalleryCursor after = null;
+        List<ImageRecord> page;
+        while (!(page = repository.findAfter(after, properties.getPageSize())).isEmpty()) {
+            List<ImageRecord> batch = page;
+            pool.submit(() -> batch.parallelStream().forEach(record -> {
+                run.recordsChecked.incrementAndGet();
+                // Records without a creation time predate the grace window
+                boolean recent = record.getCreatedAt() != null && record.getCreatedAt().isAfter(cutoff);
+                if (recent || storageService.exists(record.getId())) {
+                    return;
+                }
+                repository.deleteById(record.getId());
+                run.recordsRemoved.incrementAndGet();
+                run.sample(run.removedIds, record.getId());
+            })).get();
+            after = GalleryCursor.of(page.get(page.size() - 1));
+        }
+    }
+
+    private static final class Run {
+        final Instant startedAt = Instant.now();
+        final AtomicLong filesScanned = new AtomicLong();
+        final AtomicLong recordsChecked = new AtomicLong();
+        final AtomicLong recordsRebuilt = new AtomicLong();
+        final AtomicLong recordsRemoved = new AtomicLong();
+        final AtomicLong renditionsRemoved = new AtomicLong();
+        final Queue<String> rebuiltIds = new ConcurrentLinkedQueue<>();
+        final Queue<String> removedIds = new ConcurrentLinkedQueue<>();
+        final int maxSamples;
+        volatile ReconciliationStatus.State state = ReconciliationStatus.State.RUNNING;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Run(int maxSamples) {
+            this.maxSamples = maxSamples;
+        }
+
+        void sample(Queue<String> ids, String id) {
+            // Racing threads may overshoot by a few; the report is a sample anyway
+            if (ids.size() < maxSamples) {
+                ids.add(id);
+            }
+        }
+
+        void finish(ReconciliationStatus.State finalState, String message) {
+            error = message;
+            finishedAt = Instant.now();
+            state = finalState;
+        }
+
+        ReconciliationStatus toStatus() {
+            return ReconciliationStatus.builder()
+                    .state(state)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .filesScanned(filesScanned.get())
+                    .recordsChecked(recordsChecked.get())
+                    .recordsRebuilt(recordsRebuilt.get())
+                    .recordsRemoved(recordsRemoved.get())
+                    .renditionsRemoved(renditionsRemoved.get())
+                    .rebuiltIds(List.copyOf(rebuiltIds))
+                    .removedIds(List.copyOf(removedIds))
+                    .error(error)
+                    .build();
+        }
+    }
+}
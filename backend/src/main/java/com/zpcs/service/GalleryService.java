@@ -1,5 +1,9 @@
 package com.zpcs.service;
 
+import com.zpcs.cache.HotImageCache;
+import com.zpcs.derivative.DerivativeService;
+import com.zpcs.dto.response.GalleryCursorPage;
+import com.zpcs.model.GalleryCursor;
 import com.zpcs.model.ImageRecord;
 import com.zpcs.storage.ImageRecordRepository;
 import com.zpcs.storage.StorageService;
@@ -8,19 +12,41 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class GalleryService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 200;
+
     private final ImageRecordRepository repository;
     private final StorageService storageService;
+    private final DerivativeService derivativeService;
+    private final HotImageCache hotImageCache;
 
     public Page<ImageRecord> listImages(int page, int size) {
         return repository.findAll(PageRequest.of(page, size));
     }
 
+    public GalleryCursorPage listImagesAfter(String after, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        GalleryCursor cursor = after == null || after.isBlank() ? null : GalleryCursor.decode(after);
+        // Fetch one extra to learn whether another page exists
+        List<ImageRecord> records = repository.findAfter(cursor, limit + 1);
+        boolean hasMore = records.size() > limit;
+        List<ImageRecord> items = hasMore ? records.subList(0, limit) : records;
+        return GalleryCursorPage.builder()
+                .items(items)
+                .nextCursor(hasMore ? GalleryCursor.of(items.get(items.size() - 1)).encode() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
     public boolean deleteImage(String id) {
         repository.deleteById(id);
+        derivativeService.delete(id);
+        hotImageCache.invalidate(id);
         return storageService.delete(id);
     }
 }
@@ -0,0 +1,473 @@
+package com.zpcs.storage;
+
+import com.zpcs.buffer.BufferPool;
+import com.zpcs.buffer.PooledBuffer;
+import com.zpcs.buffer.PooledBufferChannel;
+import com.zpcs.config.DedupStoreProperties;
+import com.zpcs.config.StorageProperties;
+import com.zpcs.exception.ImageNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Stores each distinct image once, as a blob named by its SHA-256, and maps
+ * image ids to blobs. A blob is deleted when the last id referring to it is.
+ * <p>
+ * Blobs are written through a sharded {@link LocalFileStorageService}.
+ * Mappings are appended to an index log and synced before a save or delete
+ * returns; reference counts are derived from the mappings on startup, which
+ * also rewrites a log dominated by removed entries. Work on one digest is
+ * serialised by a striped lock, so a blob is never deleted while a save is
+ * about to reference it. Blobs left unreferenced by a crash are swept in the
+ * background after startup.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "dedup")
+@Slf4j
+public class DeduplicatingStorageService implements StorageService {
+
+    private static final String INDEX_LOG = "index.log";
+    private static final byte MAP = 1;
+    private static final byte UNMAP = 2;
+    private static final int LOCK_STRIPES = 64;
+    private static final int EXPECTED_IMAGE_BYTES = 1 << 20;
+
+    private record Mapping(String digest, long size, long timestamp) {
+    }
+
+    private final Path directory;
+    private final boolean fsync;
+    private final BufferPool bufferPool;
+    private final LocalFileStorageService blobs;
+
+    private final Map<String, Mapping> mappings = new ConcurrentHashMap<>();
+    private final Map<String, Integer> references = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    private final ReentrantLock logLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private FileChannel indexLog;
+    private volatile long written;
+    private volatile long synced;
+
+    private final AtomicLong logicalBytes = new AtomicLong();
+    private final AtomicLong physicalBytes = new AtomicLong();
+    private final Counter duplicates;
+
+    public DeduplicatingStorageService(DedupStoreProperties properties, BufferPool bufferPool,
+            MeterRegistry meterRegistry) {
+        this.directory = Paths.get(properties.getDirectory()).toAbsolutePath().normalize();
+        this.fsync = properties.isFsync();
+        this.bufferPool = bufferPool;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+
+        StorageProperties blobProperties = new StorageProperties();
+        blobProperties.setBasePath(directory.resolve("blobs").toString());
+        blobProperties.setLayout(StorageProperties.Layout.SHARDED);
+        blobProperties.setFsync(fsync);
+        this.blobs = new LocalFileStorageService(blobProperties);
+        blobs.init();
+
+        try {
+            recover(properties.getCompactAfterDeadEntries());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover image index from " + directory, e);
+        }
+
+        Gauge.builder("zpcs.storage.dedup.logical", logicalBytes, AtomicLong::get).baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("zpcs.storage.dedup.physical", physicalBytes, AtomicLong::get).baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("zpcs.storage.dedup.saved", this, store -> store.logicalBytes.get() - store.physicalBytes.get())
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("zpcs.storage.dedup.ratio", this, store -> {
+            long physical = store.physicalBytes.get();
+            return physical == 0 ? 1.0 : (double) store.logicalBytes.get() / physical;
+        }).register(meterRegistry);
+        Gauge.builder("zpcs.storage.dedup.blobs", references, Map::size).register(meterRegistry);
+        this.duplicates = Counter.builder("zpcs.storage.dedup.duplicates").register(meterRegistry);
+
+        Thread.ofPlatform().name("dedup-sweep").daemon(true).start(this::sweepUnreferenced);
+    }
+
+    @Override
+    public String save(byte[] data, String id) {
+        return save(ByteBuffer.wrap(data), id);
+    }
+
+    @Override
+    public String save(ByteBuffer data, String id) {
+        return save(data, id, ContentHash.sha256(data));
+    }
+
+    @Override
+    public String save(ByteBuffer data, String id, String digest) {
+        long size = data.remaining();
+        long end;
+        Mapping replaced = null;
+        ReentrantLock stripe = stripe(digest);
+        stripe.lock();
+        try {
+            boolean stored = references.containsKey(digest);
+            if (!stored) {
+                blobs.save(data, digest);
+            }
+            Mapping mapping = new Mapping(digest, size, System.currentTimeMillis());
+            end = append(map(id, mapping));
+            if (stored) {
+                duplicates.increment();
+            } else {
+                physicalBytes.addAndGet(size);
+            }
+            references.merge(digest, 1, Integer::sum);
+            logicalBytes.addAndGet(size);
+            replaced = mappings.put(id, mapping);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save image: " + id, e);
+        } finally {
+            stripe.unlock();
+        }
+        if (replaced != null) {
+            // Re-saved id; its old content loses a reference
+            logicalBytes.addAndGet(-replaced.size());
+            release(replaced);
+        }
+        sync(end, id);
+        return blobs.pathFor(digest).toString();
+    }
+
+    @Override
+    public String save(String id, ImageWriter writer) {
+        PooledBufferChannel channel = bufferPool.newChannel(EXPECTED_IMAGE_BYTES);
+        PooledBuffer buffer;
+        try {
+            writer.writeTo(channel);
+            buffer = channel.finish();
+        } catch (IOException | RuntimeException e) {
+            channel.discard();
+            throw new RuntimeException("Failed to save image: " + id, e);
+        }
+        try {
+            return save(buffer.nioBuffer(), id);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public Resource load(String id) {
+        Mapping mapping = mappings.get(id);
+        if (mapping == null) {
+            throw new ImageNotFoundException(id);
+        }
+        return blobs.load(mapping.digest());
+    }
+
+    /**
+     * Drops the id's reference; the blob goes once nothing else refers to it.
+     */
+    @Override
+    public boolean delete(String id) {
+        Mapping mapping = mappings.get(id);
+        if (mapping == null) {
+            return false;
+        }
+        long end;
+        ReentrantLock stripe = stripe(mapping.digest());
+        stripe.lock();
+        try {
+            if (!mappings.remove(id, mapping)) {
+                return false;
+            }
+            end = append(unmap(id));
+            logicalBytes.addAndGet(-mapping.size());
+        } catch (IOException e) {
+            mappings.putIfAbsent(id, mapping);
+            log.error("Failed to delete image: {}", id, e);
+            return false;
+        } finally {
+            stripe.unlock();
+        }
+        release(mapping);
+        // Otherwise a crash could bring the id back after the caller saw it deleted
+        sync(end, id);
+        return true;
+    }
+
+    @Override
+    public boolean exists(String id) {
+        return mappings.containsKey(id);
+    }
+
+    @Override
+    public Stream<StoredImage> list() {
+        return mappings.entrySet().stream()
+                .map(entry -> new StoredImage(entry.getKey(), blobs.pathFor(entry.getValue().digest()).toString(),
+                        entry.getValue().size(), Instant.ofEpochMilli(entry.getValue().timestamp())));
+    }
+
+    @PreDestroy
+    public void close() {
+        logLock.lock();
+        try {
+            indexLog.force(true);
+            indexLog.close();
+        } catch (IOException e) {
+            log.error("Failed to close image index", e);
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private void release(Mapping mapping) {
+        String digest = mapping.digest();
+        ReentrantLock stripe = stripe(digest);
+        stripe.lock();
+        try {
+            Integer remaining = references.merge(digest, -1, Integer::sum);
+            if (remaining != null && remaining <= 0) {
+                // The unmapping must be durable before the content goes
+                syncLog();
+                references.remove(digest);
+                blobs.delete(digest);
+                physicalBytes.addAndGet(-mapping.size());
+            }
+        } catch (IOException e) {
+            log.error("Failed to release blob {}; left for the startup sweep", digest, e);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private ReentrantLock stripe(String digest) {
+        return stripes[Math.floorMod(digest.hashCode(), LOCK_STRIPES)];
+    }
+
+    // ---- Index log ----
+
+    private static byte[] map(String id, Mapping mapping) {
+        return entry(MAP, id, mapping);
+    }
+
+    private static byte[] unmap(String id) {
+        return entry(UNMAP, id, null);
+    }
+
+    private static byte[] entry(byte op, String id, Mapping mapping) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(op);
+            out.writeUTF(id);
+            if (mapping != null) {
+                out.writeUTF(mapping.digest());
+                out.writeLong(mapping.size());
+                out.writeLong(mapping.timestamp());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        return ByteBuffer.allocate(8 + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload)
+                .array();
+    }
+
+    /** @return the log position after the entry, to sync up to */
+    private long append(byte[] frame) throws IOException {
+        logLock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(frame);
+            while (buffer.hasRemaining()) {
+                indexLog.write(buffer);
+            }
+            written = indexLog.position();
+            return written;
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private void sync(long end, String id) {
+        if (!fsync || synced >= end) {
+            return;
+        }
+        try {
+            syncLog();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to sync image index: " + id, e);
+        }
+    }
+
+    /** Syncs everything appended so far, sharing the sync with writers waiting for it. */
+    private void syncLog() throws IOException {
+        if (!fsync) {
+            return;
+        }
+        long target = written;
+        syncLock.lock();
+        try {
+            if (synced >= target) {
+                return;
+            }
+            long upTo = written;
+            indexLog.force(false);
+            synced = upTo;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    // ---- Recovery ----
+
+    private void recover(int compactAfterDeadEntries) throws IOException {
+        long start = System.currentTimeMillis();
+        Path file = directory.resolve(INDEX_LOG);
+        Files.deleteIfExists(directory.resolve(INDEX_LOG + ".tmp"));
+        long entries = 0;
+        long goodBytes = 0;
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                byte[] payload;
+                while ((payload = readFrame(in)) != null) {
+                    replay(payload);
+                    entries++;
+                    goodBytes += 8 + payload.length;
+                }
+            }
+        }
+        for (Mapping mapping : mappings.values()) {
+            logicalBytes.addAndGet(mapping.size());
+            if (references.merge(mapping.digest(), 1, Integer::sum) == 1) {
+                physicalBytes.addAndGet(mapping.size());
+            }
+        }
+
+        if (entries - mappings.size() > compactAfterDeadEntries) {
+            rewriteLog(file);
+        } else {
+            indexLog = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (indexLog.size() > goodBytes) {
+                log.warn("Truncating torn image index tail: {} bytes",
+                        indexLog.size() - goodBytes);
+                indexLog.truncate(goodBytes);
+            }
+            indexLog.position(goodBytes);
+        }
+        if (fsync) {
+            // A freshly created or rewritten log must not vanish once mappings are synced into it
+            FileSync.syncDirectory(directory);
+        }
+        written = indexLog.position();
+        synced = written;
+        log.info(
+                "Recovered {} image mappings to {} blobs ({} index entries) in {} ms",
+                mappings.size(), references.size(), entries, System.currentTimeMillis() - start);
+    }
+
+    private void replay(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        String id = in.readUTF();
+        if (op == MAP) {
+            mappings.put(id, new Mapping(in.readUTF(), in.readLong(), in.readLong()));
+        } else if (op == UNMAP) {
+            mappings.remove(id);
+        } else {
+            throw new IOException("Unknown image index operation " + op);
+        }
+    }
+
+    private void rewriteLog(Path file) throws IOException {
+        Path tmp = directory.resolve(INDEX_LOG + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Mapping> entry : mappings.entrySet()) {
+                ByteBuffer frame = ByteBuffer.wrap(map(entry.getKey(), entry.getValue()));
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        indexLog = FileChannel.open(file, StandardOpenOption.WRITE);
+        indexLog.position(indexLog.size());
+        log.info("Rewrote image index with {} mappings", mappings.size());
+    }
+
+    /** @return the next intact payload, or null at the end or at a torn entry */
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int crc = in.readInt();
+            if (length < 0 || length > 1 << 16) {
+                return null;
+            }
+            byte[] payload = in.readNBytes(length);
+            return payload.length == length && checksum(payload) == crc ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /** Deletes blobs nothing refers to, left behind by a crash between writing a blob and its mapping. */
+    private void sweepUnreferenced() {
+        AtomicLong removed = new AtomicLong();
+        try (Stream<StoredImage> stored = blobs.list()) {
+            stored.parallel().forEach(blob -> {
+                ReentrantLock stripe = stripe(blob.id());
+                stripe.lock();
+                try {
+                    if (!references.containsKey(blob.id()) && blobs.delete(blob.id())) {
+                        removed.incrementAndGet();
+                    }
+                } finally {
+                    stripe.unlock();
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Unreferenced blob sweep failed", e);
+            return;
+        }
+        if (removed.get() > 0) {
+            log.info("Removed {} unreferenced blobs", removed.get());
+        }
+    }
+}
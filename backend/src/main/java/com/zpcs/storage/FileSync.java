@@ -0,0 +1,29 @@
+package com.zpcs.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Directory syncs for the file-backed stores. Forcing a file persists its
+ * bytes but not its name: a file just created or renamed into place can
+ * still vanish on power loss until its directory is synced too.
+ */
+@Slf4j
+final class FileSync {
+
+    private FileSync() {
+    }
+
+    /** Persists entries created, renamed or deleted in {@code dir}; a no-op where directories cannot be opened. */
+    static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync directory {}", dir, e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.zpcs.storage;
+
+import com.zpcs.model.ImageRecord;
+import com.zpcs.model.enums.OperationMode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary form of journal and snapshot entries.
+ * A frame is {@code [int length][int crc32c][payload]}; a payload starts
+ * with an operation and a format version so fields can be added later.
+ * Version 2 appends mime type, content hash and size to puts; version 1
+ * entries still decode, with those left empty.
+ */
+final class ImageRecordCodec {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final int FRAME_HEADER_BYTES = 8;
+    static final int MAX_PAYLOAD_BYTES = 1 << 20;
+
+    private static final byte VERSION = 2;
+
+    /** A decoded payload; {@code record} is null for deletes. */
+    record Entry(byte op, String id, ImageRecord record) {
+    }
+
+    private ImageRecordCodec() {
+    }
+
+    static byte[] put(ImageRecord record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(PUT);
+            out.writeByte(VERSION);
+            writeString(out, record.getId());
+            writeString(out, record.getFilePath());
+            writeString(out, record.getPrompt());
+            writeString(out, record.getOperationMode() != null ? record.getOperationMode().name() : null);
+            out.writeLong(record.getGenerationTimeMs());
+            LocalDateTime createdAt = record.getCreatedAt();
+            out.writeBoolean(createdAt != null);
+            if (createdAt != null) {
+                out.writeLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(createdAt.getNano());
+            }
+            writeString(out, record.getMimeType());
+            writeString(out, record.getContentHash());
+            out.writeLong(record.getSizeBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] delete(String id) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(DELETE);
+            out.writeByte(VERSION);
+            writeString(out, id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Entry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        byte version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported record format version " + version);
+        }
+        String id = readString(in);
+        if (op == DELETE) {
+            return new Entry(op, id, null);
+        }
+        if (op != PUT) {
+            throw new IOException("Unknown journal operation " + op);
+        }
+        String filePath = readString(in);
+        String prompt = readString(in);
+        String mode = readString(in);
+        long generationTimeMs = in.readLong();
+        LocalDateTime createdAt = null;
+        if (in.readBoolean()) {
+            createdAt = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        }
+        String mimeType = null;
+        String contentHash = null;
+        long sizeBytes = 0;
+        if (version >= 2) {
+            mimeType = readString(in);
+            contentHash = readString(in);
+            sizeBytes = in.readLong();
+        }
+        return new Entry(op, id, ImageRecord.builder()
+                .id(id)
+                .filePath(filePath)
+                .prompt(prompt)
+                .operationMode(mode != null ? OperationMode.valueOf(mode) : null)
+                .generationTimeMs(generationTimeMs)
+                .createdAt(createdAt)
+                .mimeType(mimeType)
+                .contentHash(contentHash)
+                .sizeBytes(sizeBytes)
+                .build());
+    }
+
+    static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
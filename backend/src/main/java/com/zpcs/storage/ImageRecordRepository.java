@@ -1,9 +1,12 @@
 package com.zpcs.storage;
 
+import com.zpcs.model.GalleryCursor;
 import com.zpcs.model.ImageRecord;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -16,5 +19,11 @@ public interface ImageRecordRepository {
 
     Page<ImageRecord> findAll(Pageable pageable);
 
+    /**
+     * Up to {@code limit} records following {@code after} in gallery order,
+     * newest first; from the start when {@code after} is null.
+     */
+    List<ImageRecord> findAfter(@Nullable GalleryCursor after, int limit);
+
     void deleteById(String id);
 }
@@ -0,0 +1,13 @@
+package com.zpcs.storage;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Producer of image bytes that writes into whatever channel storage hands it,
+ * so callers can stream content without holding it whole.
+ */
+@FunctionalInterface
+public interface ImageWriter {
+    void writeTo(WritableByteChannel channel) throws IOException;
+}
@@ -1,25 +1,47 @@
 package com.zpcs.storage;
 
+import com.zpcs.model.GalleryCursor;
 import com.zpcs.model.ImageRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * Records by id, plus a skip-list index in gallery order so pages are read
+ * off the index instead of sorting the whole store per request.
+ * Index updates happen inside the per-id {@code compute}, so concurrent
+ * writes to one id cannot leave a stale index entry behind.
+ * Also serves as the read side of {@link JournaledImageRecordRepository}.
+ */
 @Repository
+@ConditionalOnProperty(name = "record-store.type", havingValue = "memory", matchIfMissing = true)
 public class InMemoryImageRecordRepository implements ImageRecordRepository {
 
     private final ConcurrentMap<String, ImageRecord> store = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<GalleryCursor, ImageRecord> index =
+            new ConcurrentSkipListMap<>(GalleryCursor.ORDER);
 
     @Override
     public ImageRecord save(ImageRecord record) {
-        store.put(record.getId(), record);
+        store.compute(record.getId(), (id, previous) -> {
+            if (previous != null) {
+                index.remove(GalleryCursor.of(previous));
+            }
+            index.put(GalleryCursor.of(record), record);
+            return record;
+        });
         return record;
     }
 
@@ -30,19 +52,44 @@ public class InMemoryImageRecordRepository implements ImageRecordRepository {
 
     @Override
     public Page<ImageRecord> findAll(Pageable pageable) {
-        List<ImageRecord> all = new ArrayList<>(store.values());
-        // Sort by createdAt descending
-        all.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+        // Offset paging stays for compatibility; it walks the index, so cost is offset + page size
+        Iterator<ImageRecord> it = index.values().iterator();
+        long toSkip = pageable.getOffset();
+        while (toSkip > 0 && it.hasNext()) {
+            it.next();
+            toSkip--;
+        }
+        List<ImageRecord> pageContent = new ArrayList<>(pageable.getPageSize());
+        while (pageContent.size() < pageable.getPageSize() && it.hasNext()) {
+            pageContent.add(it.next());
+        }
+        return new PageImpl<>(pageContent, pageable, store.size());
+    }
 
-        int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), all.size());
-        List<ImageRecord> pageContent = start < all.size() ? all.subList(start, end) : List.of();
+    @Override
+    public List<ImageRecord> findAfter(@Nullable GalleryCursor after, int limit) {
+        NavigableMap<GalleryCursor, ImageRecord> view = after == null ? index : index.tailMap(after, false);
+        List<ImageRecord> page = new ArrayList<>(limit);
+        Iterator<ImageRecord> it = view.values().iterator();
+        while (page.size() < limit && it.hasNext()) {
+            page.add(it.next());
+        }
+        return page;
+    }
+
+    int count() {
+        return store.size();
+    }
 
-        return new PageImpl<>(pageContent, pageable, all.size());
+    List<ImageRecord> all() {
+        return new ArrayList<>(store.values());
     }
 
     @Override
     public void deleteById(String id) {
-        store.remove(id);
+        store.computeIfPresent(id, (key, previous) -> {
+            index.remove(GalleryCursor.of(previous));
+            return null;
+        });
     }
 }
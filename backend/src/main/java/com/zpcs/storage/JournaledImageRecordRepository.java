@@ -0,0 +1,501 @@
+package com.zpcs.storage;
+
+import com.zpcs.config.RecordStoreProperties;
+import com.zpcs.model.GalleryCursor;
+import com.zpcs.model.ImageRecord;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Durable image records: an append-only journal on disk in front of the
+ * in-memory index, which still serves every read.
+ * <p>
+ * Writes queue for a single writer thread that appends everything queued so
+ * far and syncs once per batch (group commit); a save returns only after its
+ * batch is on disk. Every {@code snapshotEveryEntries} entries the journal
+ * rolls to a new generation and the records as of that point are written to
+ * a compacted snapshot in the background; older journals are deleted once
+ * the snapshot is in place. Startup loads the snapshot and replays the
+ * journals after it, cutting off a torn tail left by a crash.
+ */
+@Repository
+@ConditionalOnProperty(name = "record-store.type", havingValue = "journal")
+@Slf4j
+public class JournaledImageRecordRepository implements ImageRecordRepository {
+
+    private static final String SNAPSHOT = "snapshot.bin";
+    private static final Pattern JOURNAL = Pattern.compile("journal-(\\d{12})\\.log");
+    private static final int SNAPSHOT_MAGIC = 0x5A505253;
+    private static final int SNAPSHOT_FORMAT = 1;
+    private static final int IO_BUFFER_BYTES = 1 << 20;
+
+    private record Pending(byte[] payload, Runnable apply, CompletableFuture<Void> done) {
+    }
+
+    private static final Pending SHUTDOWN = new Pending(new byte[0], () -> {
+    }, new CompletableFuture<>());
+
+    private final InMemoryImageRecordRepository memory = new InMemoryImageRecordRepository();
+    private final Path directory;
+    private final int snapshotEveryEntries;
+    private final int maxBatchEntries;
+    private final boolean fsync;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final ExecutorService snapshotter;
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+
+    // closed is only touched under submitLock, so nothing is queued behind the final drain
+    private final ReentrantLock submitLock = new ReentrantLock();
+    private boolean closed;
+    private boolean shutdownRequested;
+
+    // Owned by the writer thread after construction
+    private FileChannel journal;
+    private long generation;
+    private long entriesSinceSnapshot;
+
+    private final DistributionSummary batchSize;
+    private final Timer syncTimer;
+
+    public JournaledImageRecordRepository(RecordStoreProperties properties, MeterRegistry meterRegistry) {
+        this.directory = Paths.get(properties.getDirectory()).toAbsolutePath().normalize();
+        this.snapshotEveryEntries = properties.getSnapshotEveryEntries();
+        this.maxBatchEntries = properties.getMaxBatchEntries();
+        this.fsync = properties.isFsync();
+        this.batchSize = DistributionSummary.builder("zpcs.records.journal.batch.size").register(meterRegistry);
+        this.syncTimer = Timer.builder("zpcs.records.journal.sync").register(meterRegistry);
+
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover image records from " + directory, e);
+        }
+
+        this.snapshotter = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("record-snapshot").daemon(true).factory());
+        this.writer = Thread.ofPlatform().name("record-journal").daemon(true).start(this::writeLoop);
+    }
+
+    @Override
+    public ImageRecord save(ImageRecord record) {
+        submit(ImageRecordCodec.put(record), () -> memory.save(record));
+        return record;
+    }
+
+    @Override
+    public Optional<ImageRecord> findById(String id) {
+        return memory.findById(id);
+    }
+
+    @Override
+    public Page<ImageRecord> findAll(Pageable pageable) {
+        return memory.findAll(pageable);
+    }
+
+    @Override
+    public List<ImageRecord> findAfter(@Nullable GalleryCursor after, int limit) {
+        return memory.findAfter(after, limit);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        submit(ImageRecordCodec.delete(id), () -> memory.deleteById(id));
+    }
+
+    @PreDestroy
+    public void close() {
+        submitLock.lock();
+        try {
+            if (shutdownRequested) {
+                return;
+            }
+            shutdownRequested = true;
+            closed = true;
+            queue.add(SHUTDOWN);
+        } finally {
+            submitLock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.force(true);
+            journal.close();
+        } catch (IOException e) {
+            log.error("Failed to close record journal", e);
+        }
+    }
+
+    private void submit(byte[] payload, Runnable apply) {
+        if (payload.length > ImageRecordCodec.MAX_PAYLOAD_BYTES) {
+            // Recovery treats a longer frame as a torn tail and would drop it
+            throw new IllegalArgumentException("Image record of " + payload.length
+                    + " bytes exceeds the journal limit of " + ImageRecordCodec.MAX_PAYLOAD_BYTES);
+        }
+        Pending pending = new Pending(payload, apply, new CompletableFuture<>());
+        submitLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Record journal is closed");
+            }
+            queue.add(pending);
+        } finally {
+            submitLock.unlock();
+        }
+        try {
+            pending.done().get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to persist image record", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while persisting image record", e);
+        }
+    }
+
+    // ---- Writer thread ----
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchEntries);
+        try {
+            boolean running = true;
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(batch, maxBatchEntries - 1);
+                int shutdownAt = batch.indexOf(SHUTDOWN);
+                if (shutdownAt >= 0) {
+                    running = false;
+                    batch.subList(shutdownAt, batch.size()).clear();
+                }
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                    batch.clear();
+                }
+                if (running && entriesSinceSnapshot >= snapshotEveryEntries
+                        && snapshotRunning.compareAndSet(false, true)) {
+                    rollAndSnapshot();
+                }
+            }
+            rejectQueued(new IllegalStateException("Record journal is closed"));
+        } catch (Throwable t) {
+            log.error("Record journal writer died; rejecting further writes", t);
+            batch.forEach(p -> p.done().completeExceptionally(t));
+            rejectQueued(t);
+        }
+    }
+
+    /** Closes the journal to new writes and fails everything still queued. */
+    private void rejectQueued(Throwable cause) {
+        List<Pending> rejected = new ArrayList<>();
+        submitLock.lock();
+        try {
+            closed = true;
+            queue.drainTo(rejected);
+        } finally {
+            submitLock.unlock();
+        }
+        rejected.forEach(p -> p.done().completeExceptionally(cause));
+    }
+
+    private void commit(List<Pending> batch) {
+        int bytes = 0;
+        for (Pending pending : batch) {
+            bytes += ImageRecordCodec.FRAME_HEADER_BYTES + pending.payload().length;
+        }
+        ByteBuffer frames = ByteBuffer.allocate(bytes);
+        for (Pending pending : batch) {
+            frames.putInt(pending.payload().length)
+                    .putInt(ImageRecordCodec.checksum(pending.payload()))
+                    .put(pending.payload());
+        }
+        frames.flip();
+
+        long start = 0;
+        try {
+            start = journal.position();
+            while (frames.hasRemaining()) {
+                journal.write(frames);
+            }
+            if (fsync) {
+                long syncStart = System.nanoTime();
+                journal.force(false);
+                syncTimer.record(System.nanoTime() - syncStart, TimeUnit.NANOSECONDS);
+            }
+        } catch (IOException e) {
+            log.error("Record journal write failed; {} entries rejected", batch.size(), e);
+            try {
+                // Never leave a partial frame in front of later entries
+                journal.truncate(start);
+                journal.position(start);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            batch.forEach(p -> p.done().completeExceptionally(e));
+            return;
+        }
+
+        batchSize.record(batch.size());
+        entriesSinceSnapshot += batch.size();
+        for (Pending pending : batch) {
+            pending.apply().run();
+            pending.done().complete(null);
+        }
+    }
+
+    private void rollAndSnapshot() {
+        long snapshotGeneration;
+        List<ImageRecord> records;
+        try {
+            journal.force(true);
+            journal.close();
+            generation++;
+            journal = openJournal(generation);
+            if (fsync) {
+                // The snapshot deletes older journals; this one must still be found after a power loss
+                FileSync.syncDirectory(directory);
+            }
+            // Records are immutable, so copying the references is a consistent snapshot
+            records = memory.all();
+            snapshotGeneration = generation;
+            entriesSinceSnapshot = 0;
+        } catch (IOException e) {
+            // Later commits fail and report it; keep the writer alive for them
+            log.error("Failed to roll record journal to generation {}", generation, e);
+            snapshotRunning.set(false);
+            return;
+        }
+        snapshotter.execute(() -> {
+            try {
+                writeSnapshot(records, snapshotGeneration);
+                deleteJournalsBefore(snapshotGeneration);
+            } catch (IOException e) {
+                log.error("Failed to write record snapshot; journals are kept", e);
+            } finally {
+                snapshotRunning.set(false);
+            }
+        });
+    }
+
+    private void writeSnapshot(List<ImageRecord> records, long coversUpTo) throws IOException {
+        long start = System.currentTimeMillis();
+        Path tmp = directory.resolve(SNAPSHOT + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), IO_BUFFER_BYTES));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_FORMAT);
+            out.writeLong(coversUpTo);
+            out.writeInt(records.size());
+            for (ImageRecord record : records) {
+                byte[] payload = ImageRecordCodec.put(record);
+                out.writeInt(payload.length);
+                out.writeInt(ImageRecordCodec.checksum(payload));
+                out.write(payload);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        if (fsync) {
+            // The rename must be durable before the journals it replaces are deleted
+            FileSync.syncDirectory(directory);
+        }
+        log.info("Wrote record snapshot: {} records, journal generation {}, {} ms",
+                records.size(), coversUpTo, System.currentTimeMillis() - start);
+    }
+
+    private void deleteJournalsBefore(long keepFrom) throws IOException {
+        for (long journalGeneration : journalGenerations()) {
+            if (journalGeneration < keepFrom) {
+                Files.deleteIfExists(journalPath(journalGeneration));
+            }
+        }
+    }
+
+    // ---- Recovery ----
+
+    private void recover() throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(SNAPSHOT + ".tmp"));
+
+        long firstGeneration = 1;
+        int fromSnapshot = 0;
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            firstGeneration = loadSnapshot(snapshot);
+            fromSnapshot = memory.count();
+        }
+
+        List<Long> generations = journalGenerations();
+        long replayed = 0;
+        long last = firstGeneration;
+        for (int i = 0; i < generations.size(); i++) {
+            long journalGeneration = generations.get(i);
+            if (journalGeneration < firstGeneration) {
+                // Covered by the snapshot; left behind by a crash before cleanup
+                Files.deleteIfExists(journalPath(journalGeneration));
+                continue;
+            }
+            replayed += replay(journalPath(journalGeneration), i == generations.size() - 1);
+            last = journalGeneration;
+        }
+
+        generation = last;
+        journal = openJournal(generation);
+        if (fsync) {
+            FileSync.syncDirectory(directory);
+        }
+        entriesSinceSnapshot = replayed;
+        log.info("Recovered {} image records ({} from snapshot, {} journal entries replayed) in {} ms",
+                memory.count(), fromSnapshot, replayed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @return the first journal generation not covered by the snapshot
+     */
+    private long loadSnapshot(Path snapshot) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot), IO_BUFFER_BYTES))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_FORMAT) {
+                throw new IOException("Not a record snapshot: " + snapshot);
+            }
+            long coversUpTo = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] payload = readFrame(in);
+                if (payload == null) {
+                    throw new IOException("Record snapshot is corrupt at entry " + i + ": " + snapshot);
+                }
+                memory.save(ImageRecordCodec.decode(payload).record());
+            }
+            return coversUpTo;
+        }
+    }
+
+    private long replay(Path file, boolean latest) throws IOException {
+        long entries = 0;
+        long goodBytes = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), IO_BUFFER_BYTES))) {
+            byte[] payload;
+            while ((payload = readFrame(in)) != null) {
+                ImageRecordCodec.Entry entry = ImageRecordCodec.decode(payload);
+                if (entry.op() == ImageRecordCodec.PUT) {
+                    memory.save(entry.record());
+                } else {
+                    memory.deleteById(entry.id());
+                }
+                entries++;
+                goodBytes += ImageRecordCodec.FRAME_HEADER_BYTES + payload.length;
+            }
+        }
+        long size = Files.size(file);
+        if (goodBytes < size) {
+            if (!latest) {
+                throw new IOException("Record journal " + file + " is corrupt at offset " + goodBytes);
+            }
+            log.warn("Discarding {} bytes of torn tail from {}", size - goodBytes, file.getFileName());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(goodBytes);
+                channel.force(true);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Next frame's payload, or null at end of input or at a torn or corrupt frame.
+     */
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > ImageRecordCodec.MAX_PAYLOAD_BYTES) {
+                return null;
+            }
+            int checksum = in.readInt();
+            byte[] payload = in.readNBytes(length);
+            if (payload.length != length || ImageRecordCodec.checksum(payload) != checksum) {
+                return null;
+            }
+            return payload;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private List<Long> journalGenerations() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> JOURNAL.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private FileChannel openJournal(long journalGeneration) throws IOException {
+        FileChannel channel = FileChannel.open(journalPath(journalGeneration), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private Path journalPath(long journalGeneration) {
+        return directory.resolve("journal-%012d.log".formatted(journalGeneration));
+    }
+}
@@ -5,30 +5,80 @@ import com.zpcs.exception.ImageNotFoundException;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+/**
+ * Images on the local filesystem. In the sharded layout each image lives
+ * under {@code shard-depth} levels of two-hex-digit directories derived from
+ * its id, so no directory grows past a few hundred entries. Writes go to a
+ * temp file in the target directory and are renamed into place, so readers
+ * never see a partial image. Images still in the flat layout are found until
+ * {@link StorageLayoutMigrator} has moved them.
+ */
 @Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "file", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class LocalFileStorageService implements StorageService {
 
+    static final String EXTENSION = ".png";
+
+    /** Temp files written by {@link #save(String, ImageWriter)}: {@code .<id>-<hex>.tmp}. */
+    private static final Pattern TEMP_FILE = Pattern.compile("\\..+-[0-9a-f]+\\.tmp");
+
+    private static final String[] SHARD_NAMES = new String[256];
+
+    static {
+        for (int i = 0; i < SHARD_NAMES.length; i++) {
+            SHARD_NAMES[i] = String.format("%02x", i);
+        }
+    }
+
     private final StorageProperties properties;
+    private final Set<Path> knownDirectories = ConcurrentHashMap.newKeySet();
     private Path rootLocation;
+    private boolean sharded;
+    private volatile boolean flatImagesPresent;
 
     @PostConstruct
     public void init() {
         rootLocation = Paths.get(properties.getBasePath()).toAbsolutePath().normalize();
+        sharded = properties.getLayout() == StorageProperties.Layout.SHARDED;
         try {
             Files.createDirectories(rootLocation);
-            log.info("Storage initialized at: {}", rootLocation);
+            if (sharded) {
+                try (DirectoryStream<Path> flat = Files.newDirectoryStream(rootLocation, "*" + EXTENSION)) {
+                    flatImagesPresent = flat.iterator().hasNext();
+                }
+            }
+            sweepTempFiles();
+            log.info("Storage initialized at: {} ({} layout{})", rootLocation, properties.getLayout(),
+                    flatImagesPresent ? ", flat images pending migration" : "");
         } catch (IOException e) {
             throw new RuntimeException("Could not initialize storage", e);
         }
@@ -36,25 +86,52 @@ public class LocalFileStorageService implements StorageService {
 
     @Override
     public String save(byte[] data, String id) {
+        return save(ByteBuffer.wrap(data), id);
+    }
+
+    @Override
+    public String save(String id, ImageWriter writer) {
+        Path target = pathFor(id);
         try {
-            Path target = rootLocation.resolve(id + ".png");
-            Files.write(target, data);
-            log.info("Saved image: {}", target);
-            return target.toString();
-        } catch (IOException e) {
+            ensureDirectory(target.getParent());
+            // Not Files.createTempFile, which would leave the image owner-only readable
+            Path temp = target.resolveSibling("." + id + "-"
+                    + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE)) {
+                    writer.writeTo(channel);
+                    if (properties.isFsync()) {
+                        channel.force(false);
+                    }
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            if (properties.isFsync()) {
+                FileSync.syncDirectory(target.getParent());
+            }
+        } catch (IOException | RuntimeException e) {
             throw new RuntimeException("Failed to save image: " + id, e);
         }
+        log.info("Saved image: {}", target);
+        return target.toString();
     }
 
     @Override
     public Resource load(String id) {
-        try {
-            Path file = rootLocation.resolve(id + ".png");
-            Resource resource = new UrlResource(file.toUri());
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            }
+        Path file = locate(id);
+        if (file == null) {
             throw new ImageNotFoundException(id);
+        }
+        try {
+            return new UrlResource(file.toUri());
         } catch (MalformedURLException e) {
             throw new ImageNotFoundException(id);
         }
@@ -63,8 +140,11 @@ public class LocalFileStorageService implements StorageService {
     @Override
     public boolean delete(String id) {
         try {
-            Path file = rootLocation.resolve(id + ".png");
-            return Files.deleteIfExists(file);
+            boolean deleted = Files.deleteIfExists(pathFor(id));
+            if (flatImagesPresent) {
+                deleted |= Files.deleteIfExists(flatPath(id));
+            }
+            return deleted;
         } catch (IOException e) {
             log.error("Failed to delete image: {}", id, e);
             return false;
@@ -73,7 +153,159 @@ public class LocalFileStorageService implements StorageService {
 
     @Override
     public boolean exists(String id) {
-        Path file = rootLocation.resolve(id + ".png");
-        return Files.exists(file);
+        return locate(id) != null;
+    }
+
+    /**
+     * Lists shard directories up front and their contents lazily, so a
+     * parallel consumer splits the walk by directory.
+     */
+    @Override
+    public Stream<StoredImage> list() {
+        Stream<StoredImage> flat = images(rootLocation);
+        if (!sharded) {
+            return flat;
+        }
+        List<Path> leaves = leafDirectories();
+        return Stream.concat(flat, leaves.stream().flatMap(LocalFileStorageService::images));
+    }
+
+    Path root() {
+        return rootLocation;
+    }
+
+    Path flatPath(String id) {
+        return rootLocation.resolve(id + EXTENSION);
+    }
+
+    /**
+     * Where {@code id} is written in the configured layout. Ids with a
+     * {@code .suffix}, such as renditions, shard by the part before it and so
+     * land next to their original.
+     */
+    Path pathFor(String id) {
+        if (!sharded) {
+            return flatPath(id);
+        }
+        int dot = id.indexOf('.');
+        int hash = (dot < 0 ? id : id.substring(0, dot)).hashCode();
+        hash ^= hash >>> 16;
+        Path dir = rootLocation;
+        for (int level = 0; level < properties.getShardDepth(); level++) {
+            dir = dir.resolve(SHARD_NAMES[(hash >>> (8 * level)) & 0xff]);
+        }
+        return dir.resolve(id + EXTENSION);
+    }
+
+    void ensureDirectory(Path dir) throws IOException {
+        if (knownDirectories.contains(dir)) {
+            return;
+        }
+        Path existing = dir;
+        while (existing != null && !Files.isDirectory(existing)) {
+            existing = existing.getParent();
+        }
+        Files.createDirectories(dir);
+        if (properties.isFsync() && existing != null) {
+            // Each new directory's entry must be durable before a rename into it is
+            for (Path created = dir; !created.equals(existing); created = created.getParent()) {
+                FileSync.syncDirectory(created.getParent());
+            }
+        }
+        knownDirectories.add(dir);
+    }
+
+    boolean hasFlatImages() {
+        return flatImagesPresent;
+    }
+
+    /** Called once the migrator has emptied the flat layout; stops the fallback lookups. */
+    void flatImagesMigrated() {
+        flatImagesPresent = false;
+    }
+
+    private Path locate(String id) {
+        Path file = pathFor(id);
+        if (Files.exists(file)) {
+            return file;
+        }
+        if (flatImagesPresent) {
+            Path flat = flatPath(id);
+            if (Files.exists(flat)) {
+                return flat;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Deletes temp files left by saves that a crash cut short. Runs before
+     * any save, so none of them can still be in use.
+     */
+    private void sweepTempFiles() throws IOException {
+        int depth = sharded ? properties.getShardDepth() + 1 : 1;
+        long swept;
+        try (Stream<Path> files = Files.walk(rootLocation, depth)) {
+            swept = files.filter(path -> TEMP_FILE.matcher(path.getFileName().toString()).matches())
+                    .filter(Files::isRegularFile)
+                    .filter(LocalFileStorageService::deleteQuietly)
+                    .count();
+        }
+        if (swept > 0) {
+            log.info("Removed {} temp files left by interrupted saves", swept);
+        }
+    }
+
+    private static boolean deleteQuietly(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not remove stale temp file {}", file, e);
+            return false;
+        }
+    }
+
+    private List<Path> leafDirectories() {
+        List<Path> level = List.of(rootLocation);
+        for (int depth = 0; depth < properties.getShardDepth(); depth++) {
+            List<Path> next = new ArrayList<>();
+            for (Path dir : level) {
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(dir,
+                        child -> child.getFileName().toString().length() == 2 && Files.isDirectory(child))) {
+                    children.forEach(next::add);
+                } catch (NoSuchFileException e) {
+                    // Removed while listing
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to list images", e);
+                }
+            }
+            level = next;
+        }
+        return level;
+    }
+
+    private static Stream<StoredImage> images(Path dir) {
+        try {
+            return Files.list(dir)
+                    .filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+                    .map(LocalFileStorageService::describe)
+                    .flatMap(Optional::stream);
+        } catch (NoSuchFileException e) {
+            return Stream.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list images", e);
+        }
+    }
+
+    private static Optional<StoredImage> describe(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return Optional.of(new StoredImage(name.substring(0, name.length() - EXTENSION.length()),
+                    file.toString(), attributes.size(), attributes.lastModifiedTime().toInstant()));
+        } catch (IOException e) {
+            // Deleted while listing
+            return Optional.empty();
+        }
     }
 }
@@ -0,0 +1,16 @@
+package com.zpcs.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A resource that can stream part of its content without reading what
+ * comes before it, such as a remote object fetched with a range request.
+ */
+public interface RangedResource extends Resource {
+
+    /** Bytes {@code start} to {@code end}, both inclusive. */
+    InputStream getInputStream(long start, long end) throws IOException;
+}
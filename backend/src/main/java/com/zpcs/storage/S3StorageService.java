@@ -0,0 +1,537 @@
+package com.zpcs.storage;
+
+import com.zpcs.buffer.BufferPool;
+import com.zpcs.config.S3StorageProperties;
+import com.zpcs.exception.ImageNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Images as objects in an S3-compatible bucket, so every replica sees the
+ * same images without a shared volume.
+ * <p>
+ * An image of up to one part goes up in a single PUT. Larger ones become a
+ * multipart upload whose parts are sent in parallel; a streamed save fills
+ * pooled part buffers and sends each as soon as it is full, so at most a
+ * few parts of an image are ever held. Reads stream the object body, and
+ * {@link RangedResource} lets a range request fetch only the bytes asked
+ * for. Object sizes and absences are cached so repeated {@link #exists}
+ * and {@link #load} calls do not each cost a HEAD request.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+@Slf4j
+public class S3StorageService implements StorageService {
+
+    private static final String CONTENT_TYPE = "application/octet-stream";
+
+    /** Size and modification time of an object; a negative size records its absence. */
+    private record Head(long size, Instant lastModified, long expiresAt) {
+        boolean present() {
+            return size >= 0;
+        }
+    }
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String keyPrefix;
+    private final int partBytes;
+    private final int uploadParallelism;
+    private final int metadataCacheEntries;
+    private final long metadataTtlMs;
+    private final long missingTtlMs;
+    private final BufferPool bufferPool;
+    private final ExecutorService uploader;
+
+    private final ReentrantLock headLock = new ReentrantLock();
+    private final LinkedHashMap<String, Head> heads = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private final Counter cachedHeads;
+    private final Counter remoteHeads;
+    private final Counter uploadedParts;
+
+    public S3StorageService(S3StorageProperties properties, BufferPool bufferPool, MeterRegistry meterRegistry) {
+        this.bucket = properties.getBucket();
+        this.keyPrefix = properties.getKeyPrefix() != null ? properties.getKeyPrefix() : "";
+        this.partBytes = properties.getPartBytes();
+        this.uploadParallelism = properties.getUploadParallelism();
+        this.metadataCacheEntries = properties.getMetadataCacheEntries();
+        this.metadataTtlMs = properties.getMetadataTtlSeconds() * 1000;
+        this.missingTtlMs = properties.getMissingTtlSeconds() * 1000;
+        this.bufferPool = bufferPool;
+        this.s3 = buildClient(properties);
+        this.uploader = Executors.newFixedThreadPool(uploadParallelism,
+                Thread.ofPlatform().name("s3-upload-", 0).daemon(true).factory());
+
+        this.cachedHeads = meterRegistry.counter("zpcs.storage.s3.head", "source", "cache");
+        this.remoteHeads = meterRegistry.counter("zpcs.storage.s3.head", "source", "remote");
+        this.uploadedParts = meterRegistry.counter("zpcs.storage.s3.parts");
+
+        if (properties.isCreateBucket()) {
+            ensureBucket();
+        }
+        log.info("Storing images in s3://{}/{}", bucket, keyPrefix);
+    }
+
+    private static S3Client buildClient(S3StorageProperties properties) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(properties.getRegion()))
+                .forcePathStyle(properties.isPathStyleAccess())
+                // Checksums only where the API demands them; not every S3-compatible store accepts the trailers
+                .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+                .httpClientBuilder(ApacheHttpClient.builder().maxConnections(properties.getMaxConnections()));
+        if (StringUtils.hasText(properties.getEndpoint())) {
+            builder.endpointOverride(URI.create(properties.getEndpoint()));
+        }
+        if (StringUtils.hasText(properties.getAccessKey())) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(properties.getAccessKey(), properties.getSecretKey())));
+        }
+        return builder.build();
+    }
+
+    private void ensureBucket() {
+        try {
+            s3.headBucket(b -> b.bucket(bucket));
+        } catch (S3Exception e) {
+            if (e.statusCode() != 404) {
+                throw e;
+            }
+            s3.createBucket(b -> b.bucket(bucket));
+            log.info("Created bucket {}", bucket);
+        }
+    }
+
+    @Override
+    public String save(byte[] data, String id) {
+        return save(ByteBuffer.wrap(data), id);
+    }
+
+    @Override
+    public String save(ByteBuffer data, String id) {
+        ByteBuffer content = data.duplicate();
+        int size = content.remaining();
+        String key = key(id);
+        try {
+            if (size <= partBytes) {
+                put(key, content);
+            } else {
+                Upload upload = new Upload(key);
+                try {
+                    for (int offset = 0; offset < size; offset += partBytes) {
+                        int length = Math.min(partBytes, size - offset);
+                        ByteBuffer part = content.slice(content.position() + offset, length);
+                        // Slices of the caller's buffer, which outlives the upload
+                        upload.send(part, () -> { });
+                    }
+                    upload.complete();
+                } catch (RuntimeException e) {
+                    upload.abort();
+                    throw e;
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Failed to save image: " + id, e);
+        }
+        return saved(id, size);
+    }
+
+    @Override
+    public String save(String id, ImageWriter writer) {
+        PartChannel channel = new PartChannel(key(id));
+        long size;
+        try {
+            writer.writeTo(channel);
+            size = channel.finish();
+        } catch (IOException | RuntimeException e) {
+            channel.discard();
+            throw new RuntimeException("Failed to save image: " + id, e);
+        }
+        return saved(id, size);
+    }
+
+    @Override
+    public Resource load(String id) {
+        Head head = head(id);
+        if (!head.present()) {
+            throw new ImageNotFoundException(id);
+        }
+        return new ObjectResource(id, head);
+    }
+
+    @Override
+    public boolean delete(String id) {
+        boolean existed = head(id).present();
+        s3.deleteObject(b -> b.bucket(bucket).key(key(id)));
+        remember(id, new Head(-1, null, System.currentTimeMillis() + missingTtlMs));
+        if (existed) {
+            log.info("Deleted image: {}", id);
+        }
+        return existed;
+    }
+
+    @Override
+    public boolean exists(String id) {
+        return head(id).present();
+    }
+
+    @Override
+    public Stream<StoredImage> list() {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(keyPrefix)
+                .build();
+        return s3.listObjectsV2Paginator(request).contents().stream()
+                .map(object -> {
+                    String id = object.key().substring(keyPrefix.length());
+                    return new StoredImage(id, location(id), object.size(), object.lastModified());
+                });
+    }
+
+    @PreDestroy
+    public void close() {
+        uploader.shutdown();
+        try {
+            uploader.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        s3.close();
+    }
+
+    private String key(String id) {
+        return keyPrefix + id;
+    }
+
+    private String location(String id) {
+        return "s3://" + bucket + "/" + key(id);
+    }
+
+    private String saved(String id, long size) {
+        remember(id, new Head(size, Instant.now(), System.currentTimeMillis() + metadataTtlMs));
+        String location = location(id);
+        log.info("Saved image: {}", location);
+        return location;
+    }
+
+    private void put(String key, ByteBuffer content) {
+        s3.putObject(b -> b.bucket(bucket).key(key).contentType(CONTENT_TYPE), body(content));
+    }
+
+    /** A body that can be replayed on retry without copying the buffer. */
+    private static RequestBody body(ByteBuffer content) {
+        return RequestBody.fromContentProvider(
+                () -> new ByteBufferResource(content, 0, "part").getInputStream(),
+                content.remaining(), CONTENT_TYPE);
+    }
+
+    private Head head(String id) {
+        long now = System.currentTimeMillis();
+        headLock.lock();
+        try {
+            Head cached = heads.get(id);
+            if (cached != null && cached.expiresAt() > now) {
+                cachedHeads.increment();
+                return cached;
+            }
+        } finally {
+            headLock.unlock();
+        }
+        remoteHeads.increment();
+        Head head;
+        try {
+            HeadObjectResponse response = s3.headObject(b -> b.bucket(bucket).key(key(id)));
+            head = new Head(response.contentLength(), response.lastModified(), now + metadataTtlMs);
+        } catch (S3Exception e) {
+            if (e.statusCode() != 404) {
+                throw e;
+            }
+            head = new Head(-1, null, now + missingTtlMs);
+        }
+        remember(id, head);
+        return head;
+    }
+
+    private void remember(String id, Head head) {
+        headLock.lock();
+        try {
+            heads.put(id, head);
+            Iterator<String> it = heads.keySet().iterator();
+            while (heads.size() > metadataCacheEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            headLock.unlock();
+        }
+    }
+
+    /**
+     * One multipart upload. Parts are sent on the shared uploader threads,
+     * with at most {@code uploadParallelism} of this upload's parts in flight.
+     */
+    private final class Upload {
+
+        private final String key;
+        private final String uploadId;
+        private final Semaphore inFlight = new Semaphore(uploadParallelism);
+        private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+
+        Upload(String key) {
+            this.key = key;
+            this.uploadId = s3.createMultipartUpload(b -> b.bucket(bucket).key(key).contentType(CONTENT_TYPE))
+                    .uploadId();
+        }
+
+        /**
+         * Queues the next part, waiting while too many are in flight;
+         * {@code done} runs once the part no longer needs {@code content}.
+         */
+        void send(ByteBuffer content, Runnable done) {
+            int partNumber = parts.size() + 1;
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                done.run();
+                throw new IllegalStateException("Interrupted while uploading " + key, e);
+            }
+            try {
+                parts.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        UploadPartResponse response = s3.uploadPart(b -> b.bucket(bucket)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) content.remaining()), body(content));
+                        uploadedParts.increment();
+                        return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+                    } finally {
+                        inFlight.release();
+                        done.run();
+                    }
+                }, uploader));
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                done.run();
+                throw e;
+            }
+        }
+
+        void complete() {
+            List<CompletedPart> completed = new ArrayList<>(parts.size());
+            for (CompletableFuture<CompletedPart> part : parts) {
+                completed.add(part.join());
+            }
+            s3.completeMultipartUpload(b -> b.bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(multipart -> multipart.parts(completed)));
+        }
+
+        /** Lets parts in flight finish, then drops every uploaded part. */
+        void abort() {
+            for (CompletableFuture<CompletedPart> part : parts) {
+                try {
+                    part.join();
+                } catch (RuntimeException ignored) {
+                    // The upload is abandoned either way
+                }
+            }
+            try {
+                s3.abortMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId));
+            } catch (RuntimeException e) {
+                log.warn("Could not abort upload of {}; the bucket lifecycle rule must clean it up: {}",
+                        key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write side of a streamed save. Bytes collect in a pooled buffer of one
+     * part; content that never fills it is sent with a single PUT, otherwise
+     * each full part is handed to a multipart upload while the writer goes on.
+     * Not thread-safe.
+     */
+    private final class PartChannel implements WritableByteChannel {
+
+        private final String key;
+        private ByteBuffer part;
+        private Upload upload;
+        private long size;
+
+        PartChannel(String key) {
+            this.key = key;
+            this.part = bufferPool.acquire(partBytes);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws ClosedChannelException {
+            if (part == null) {
+                throw new ClosedChannelException();
+            }
+            int length = src.remaining();
+            while (src.hasRemaining()) {
+                if (!part.hasRemaining()) {
+                    sendPart();
+                }
+                int count = Math.min(part.remaining(), src.remaining());
+                part.put(src.slice(src.position(), count));
+                src.position(src.position() + count);
+            }
+            size += length;
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return part != null;
+        }
+
+        /** No-op so wrapping streams can be closed safely; use {@link #finish()}. */
+        @Override
+        public void close() {
+        }
+
+        /** Sends what is left and completes the object. */
+        long finish() {
+            ByteBuffer last = part.flip();
+            part = null;
+            if (upload == null) {
+                try {
+                    put(key, last);
+                } finally {
+                    bufferPool.recycle(last);
+                }
+                return size;
+            }
+            if (last.hasRemaining()) {
+                upload.send(last, () -> bufferPool.recycle(last));
+            } else {
+                bufferPool.recycle(last);
+            }
+            upload.complete();
+            return size;
+        }
+
+        void discard() {
+            if (part != null) {
+                bufferPool.recycle(part);
+                part = null;
+            }
+            if (upload != null) {
+                upload.abort();
+                upload = null;
+            }
+        }
+
+        private void sendPart() {
+            if (upload == null) {
+                upload = new Upload(key);
+            }
+            ByteBuffer full = part.flip();
+            part = null;
+            upload.send(full, () -> bufferPool.recycle(full));
+            part = bufferPool.acquire(partBytes);
+        }
+    }
+
+    /**
+     * An object read on demand. Size and modification time come from the
+     * metadata cache; each stream is a fresh GET, ranged when asked.
+     */
+    private final class ObjectResource extends AbstractResource implements RangedResource {
+
+        private final String id;
+        private final Head head;
+
+        ObjectResource(String id, Head head) {
+            this.id = id;
+            this.head = head;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return open(null);
+        }
+
+        @Override
+        public InputStream getInputStream(long start, long end) throws IOException {
+            return open("bytes=" + start + "-" + end);
+        }
+
+        private InputStream open(String range) throws IOException {
+            try {
+                return s3.getObject(b -> b.bucket(bucket).key(key(id)).range(range));
+            } catch (S3Exception e) {
+                if (e.statusCode() != 404) {
+                    throw e;
+                }
+                // Deleted through another replica since the metadata was cached
+                remember(id, new Head(-1, null, System.currentTimeMillis() + missingTtlMs));
+                throw new FileNotFoundException(location(id));
+            }
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return head.size();
+        }
+
+        @Override
+        public long lastModified() {
+            return head.lastModified() != null ? head.lastModified().toEpochMilli() : 0;
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object " + location(id);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.zpcs.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * One append-only file of {@link SegmentStorageService}, mapped read-only
+ * over its whole extent so reads are slices of the mapping.
+ * <p>
+ * A record is a fixed header, the UTF-8 id and the image bytes:
+ * {@code [int magic][byte type][short idLength][long timestamp][int dataLength]
+ * [int dataCrc][int headerCrc][id][data]}. The header checksum covers the
+ * header and id, so the index can be rebuilt from headers alone; the data
+ * checksum is verified where a torn write is possible. A tombstone is a
+ * record without data.
+ * <p>
+ * The active segment is created at full size, sparse, so its mapping never
+ * has to grow; sealing truncates it to the bytes written. Appends are
+ * serialised by the store; syncs are shared between concurrent writers.
+ */
+final class Segment {
+
+    static final byte PUT = 1;
+    static final byte TOMBSTONE = 2;
+
+    private static final int MAGIC = 0x5A505347;
+    private static final int HEADER_CRC_OFFSET = 23;
+    private static final int FIXED_HEADER_BYTES = 27;
+
+    /** A parsed header; offsets are absolute within the segment. */
+    record Header(byte type, String id, long timestamp, long dataOffset, int dataLength, int dataCrc,
+            int recordBytes) {
+    }
+
+    final long id;
+    final Path path;
+    final AtomicLong totalBytes = new AtomicLong();
+    final AtomicLong deadBytes = new AtomicLong();
+
+    private final FileChannel channel;
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private MappedByteBuffer map;
+    private long capacity;
+    private long writePosition;
+    private volatile long written;
+    private volatile long synced;
+    private volatile boolean sealed;
+
+    private Segment(long id, Path path, FileChannel channel) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+    }
+
+    static Segment create(long id, Path path, int capacity) throws IOException {
+        Segment segment = new Segment(id, path, FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segment.extendTo(capacity);
+        return segment;
+    }
+
+    /** Opens an existing segment for scanning; finish with {@link #recovered}. */
+    static Segment open(long id, Path path) throws IOException {
+        Segment segment = new Segment(id, path, FileChannel.open(path, StandardOpenOption.READ,
+                StandardOpenOption.WRITE));
+        segment.capacity = segment.channel.size();
+        segment.map = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.capacity);
+        return segment;
+    }
+
+    static ByteBuffer header(byte type, byte[] id, long timestamp, int dataLength, int dataCrc) {
+        ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_BYTES + id.length);
+        header.putInt(MAGIC)
+                .put(type)
+                .putShort((short) id.length)
+                .putLong(timestamp)
+                .putInt(dataLength)
+                .putInt(dataCrc)
+                .putInt(0)
+                .put(id);
+        CRC32C crc = new CRC32C();
+        crc.update(header.array(), 0, HEADER_CRC_OFFSET);
+        crc.update(id);
+        return header.putInt(HEADER_CRC_OFFSET, (int) crc.getValue()).flip();
+    }
+
+    static int checksum(ByteBuffer data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data.duplicate());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * The record at {@code position}, or null where no intact header is found,
+     * which marks the end of the segment.
+     */
+    Header readHeader(long position) {
+        if (position + FIXED_HEADER_BYTES > capacity) {
+            return null;
+        }
+        int at = (int) position;
+        if (map.getInt(at) != MAGIC) {
+            return null;
+        }
+        byte type = map.get(at + 4);
+        int idLength = map.getShort(at + 5) & 0xffff;
+        int dataLength = map.getInt(at + 15);
+        if ((type != PUT && type != TOMBSTONE) || dataLength < 0
+                || position + FIXED_HEADER_BYTES + idLength + dataLength > capacity) {
+            return null;
+        }
+        byte[] id = new byte[idLength];
+        map.get(at + FIXED_HEADER_BYTES, id);
+        CRC32C crc = new CRC32C();
+        crc.update(map.slice(at, HEADER_CRC_OFFSET));
+        crc.update(id);
+        if ((int) crc.getValue() != map.getInt(at + HEADER_CRC_OFFSET)) {
+            return null;
+        }
+        return new Header(type, new String(id, StandardCharsets.UTF_8), map.getLong(at + 7),
+                position + FIXED_HEADER_BYTES + idLength, dataLength, map.getInt(at + 19),
+                FIXED_HEADER_BYTES + idLength + dataLength);
+    }
+
+    boolean dataIntact(Header header) {
+        return checksum(slice(header.dataOffset(), header.dataLength())) == header.dataCrc();
+    }
+
+    ByteBuffer slice(long offset, int length) {
+        return map.slice((int) offset, length);
+    }
+
+    boolean fits(int recordBytes) {
+        return !sealed && writePosition + recordBytes <= capacity;
+    }
+
+    /** End of the last complete record. */
+    long end() {
+        return written;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * Writes one record at the end of the segment; the caller serialises appends.
+     *
+     * @return the offset of the record
+     */
+    long append(ByteBuffer header, ByteBuffer data) throws IOException {
+        long start = writePosition;
+        long position = start;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+        while (data.hasRemaining()) {
+            position += channel.write(data, position);
+        }
+        writePosition = position;
+        written = position;
+        totalBytes.addAndGet(position - start);
+        return start;
+    }
+
+    /** Makes everything up to {@code end} durable, sharing the sync with other writers waiting for it. */
+    void syncTo(long end) throws IOException {
+        if (synced >= end) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (synced >= end) {
+                return;
+            }
+            long target = written;
+            channel.force(false);
+            synced = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /** Syncs and trims the unused tail; no further appends. Caller holds the append lock. */
+    void seal() throws IOException {
+        channel.force(false);
+        synced = writePosition;
+        channel.truncate(writePosition);
+        capacity = writePosition;
+        sealed = true;
+    }
+
+    /**
+     * Adopts the scanned end. The latest segment, if it still has room, stays
+     * open for appends with anything past the end zeroed; the rest are sealed.
+     */
+    void recovered(long end, boolean latest, int segmentBytes) throws IOException {
+        writePosition = end;
+        written = end;
+        synced = end;
+        totalBytes.set(end);
+        if (latest && capacity == segmentBytes && end < capacity) {
+            // Drop a torn tail so a later scan cannot mistake its remains for records
+            channel.truncate(end);
+            extendTo(segmentBytes);
+        } else {
+            if (end < channel.size()) {
+                channel.truncate(end);
+            }
+            capacity = end;
+            sealed = true;
+        }
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private void extendTo(int size) throws IOException {
+        if (channel.size() < size) {
+            channel.write(ByteBuffer.allocate(1), size - 1);
+        }
+        capacity = size;
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+}
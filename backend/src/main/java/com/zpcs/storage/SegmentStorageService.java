@@ -0,0 +1,409 @@
+package com.zpcs.storage;
+
+import com.zpcs.buffer.BufferPool;
+import com.zpcs.buffer.PooledBuffer;
+import com.zpcs.buffer.PooledBufferChannel;
+import com.zpcs.config.SegmentStoreProperties;
+import com.zpcs.exception.ImageNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Images packed into large append-only segment files instead of one file
+ * each, with an in-memory index from id to location. Reads are slices of the
+ * segment mappings and never copy through the heap.
+ * <p>
+ * Appends and the index updates that follow them happen under one lock, so
+ * the order of records on disk matches the order the index saw them; syncs
+ * happen after the lock and are shared by writers that queue up behind one.
+ * Deletes append a tombstone. Sealed segments whose dead share passes the
+ * threshold are compacted in the background by copying their live records
+ * to the active segment and deleting the file. Startup rebuilds the index by
+ * scanning the record headers of every segment in order, cutting off a torn
+ * tail in the latest one.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "segment")
+@Slf4j
+public class SegmentStorageService implements StorageService {
+
+    private static final Pattern SEGMENT = Pattern.compile("segment-(\\d{12})\\.dat");
+    private static final ByteBuffer NO_DATA = ByteBuffer.allocate(0);
+    private static final int EXPECTED_IMAGE_BYTES = 1 << 20;
+
+    private record Location(Segment segment, long recordOffset, int recordBytes, long dataOffset, int length,
+            long timestamp) {
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+    private final int compactionGarbagePercent;
+    private final BufferPool bufferPool;
+
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ScheduledExecutorService compactor;
+    private Segment active;
+
+    private final Counter compactions;
+    private final Counter reclaimedBytes;
+
+    public SegmentStorageService(SegmentStoreProperties properties, BufferPool bufferPool,
+            MeterRegistry meterRegistry) {
+        this.directory = Paths.get(properties.getDirectory()).toAbsolutePath().normalize();
+        this.segmentBytes = properties.getSegmentBytes();
+        this.fsync = properties.isFsync();
+        this.compactionGarbagePercent = properties.getCompactionGarbagePercent();
+        this.bufferPool = bufferPool;
+
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover image segments from " + directory, e);
+        }
+
+        Gauge.builder("zpcs.storage.segment.count", segments, Map::size).register(meterRegistry);
+        Gauge.builder("zpcs.storage.segment.images", index, Map::size).register(meterRegistry);
+        Gauge.builder("zpcs.storage.segment.bytes", this,
+                store -> store.sum(segment -> segment.totalBytes.get())).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("zpcs.storage.segment.dead.bytes", this,
+                store -> store.sum(segment -> segment.deadBytes.get())).baseUnit("bytes").register(meterRegistry);
+        this.compactions = Counter.builder("zpcs.storage.segment.compactions").register(meterRegistry);
+        this.reclaimedBytes = Counter.builder("zpcs.storage.segment.reclaimed").baseUnit("bytes")
+                .register(meterRegistry);
+
+        int interval = properties.getCompactionIntervalSeconds();
+        this.compactor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("segment-compactor").daemon(true).factory());
+        compactor.scheduleWithFixedDelay(this::compact, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public String save(byte[] data, String id) {
+        return save(ByteBuffer.wrap(data), id);
+    }
+
+    @Override
+    public String save(ByteBuffer data, String id) {
+        ByteBuffer content = data.duplicate();
+        long timestamp = System.currentTimeMillis();
+        ByteBuffer header = Segment.header(Segment.PUT, id.getBytes(StandardCharsets.UTF_8), timestamp,
+                content.remaining(), Segment.checksum(content));
+        if (header.remaining() + content.remaining() > segmentBytes) {
+            throw new IllegalArgumentException("Image " + id + " of " + content.remaining()
+                    + " bytes does not fit in a segment");
+        }
+        Location location;
+        appendLock.lock();
+        try {
+            location = append(header, content, timestamp);
+            Location previous = index.put(id, location);
+            if (previous != null) {
+                previous.segment().deadBytes.addAndGet(previous.recordBytes());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save image: " + id, e);
+        } finally {
+            appendLock.unlock();
+        }
+        sync(location, id);
+        log.info("Saved image: {} in {}", id, location.segment().path.getFileName());
+        return describe(location);
+    }
+
+    @Override
+    public String save(String id, ImageWriter writer) {
+        PooledBufferChannel channel = bufferPool.newChannel(EXPECTED_IMAGE_BYTES);
+        PooledBuffer buffer;
+        try {
+            writer.writeTo(channel);
+            buffer = channel.finish();
+        } catch (IOException | RuntimeException e) {
+            channel.discard();
+            throw new RuntimeException("Failed to save image: " + id, e);
+        }
+        try {
+            return save(buffer.nioBuffer(), id);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public Resource load(String id) {
+        Location location = index.get(id);
+        if (location == null) {
+            throw new ImageNotFoundException(id);
+        }
+        return new ByteBufferResource(location.segment().slice(location.dataOffset(), location.length()),
+                location.timestamp(), "image " + id + " in " + location.segment().path.getFileName());
+    }
+
+    @Override
+    public boolean delete(String id) {
+        long timestamp = System.currentTimeMillis();
+        ByteBuffer tombstone = Segment.header(Segment.TOMBSTONE, id.getBytes(StandardCharsets.UTF_8),
+                timestamp, 0, 0);
+        Location location;
+        appendLock.lock();
+        try {
+            Location removed = index.get(id);
+            if (removed == null) {
+                return false;
+            }
+            location = append(tombstone, NO_DATA, timestamp);
+            index.remove(id);
+            removed.segment().deadBytes.addAndGet(removed.recordBytes());
+            location.segment().deadBytes.addAndGet(location.recordBytes());
+        } catch (IOException e) {
+            log.error("Failed to delete image: {}", id, e);
+            return false;
+        } finally {
+            appendLock.unlock();
+        }
+        sync(location, id);
+        return true;
+    }
+
+    @Override
+    public boolean exists(String id) {
+        return index.containsKey(id);
+    }
+
+    @Override
+    public Stream<StoredImage> list() {
+        return index.entrySet().stream()
+                .map(entry -> new StoredImage(entry.getKey(), describe(entry.getValue()),
+                        entry.getValue().length(), Instant.ofEpochMilli(entry.getValue().timestamp())));
+    }
+
+    @PreDestroy
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appendLock.lock();
+        try {
+            active.syncTo(active.end());
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        } catch (IOException e) {
+            log.error("Failed to close image segments", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /** Caller holds the append lock. */
+    private Location append(ByteBuffer header, ByteBuffer data, long timestamp) throws IOException {
+        int headerBytes = header.remaining();
+        int length = data.remaining();
+        if (!active.fits(headerBytes + length)) {
+            roll();
+        }
+        long offset = active.append(header, data);
+        return new Location(active, offset, headerBytes + length, offset + headerBytes, length, timestamp);
+    }
+
+    private void sync(Location location, String id) {
+        if (!fsync) {
+            return;
+        }
+        try {
+            location.segment().syncTo(location.recordOffset() + location.recordBytes());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to sync image: " + id, e);
+        }
+    }
+
+    private void roll() throws IOException {
+        active.seal();
+        long next = active.id + 1;
+        active = newSegment(next);
+        segments.put(next, active);
+        log.info("Started image segment {}", active.path.getFileName());
+    }
+
+    private Segment newSegment(long id) throws IOException {
+        Segment segment = Segment.create(id, segmentPath(id), segmentBytes);
+        if (fsync) {
+            // Syncing records is not enough while the file itself could vanish from the directory
+            FileSync.syncDirectory(directory);
+        }
+        return segment;
+    }
+
+    // ---- Compaction ----
+
+    /** Compacts every sealed segment past the garbage threshold; runs on the compactor thread. */
+    void compact() {
+        for (Segment segment : segments.values()) {
+            long total = segment.totalBytes.get();
+            if (!segment.isSealed() || total == 0
+                    || segment.deadBytes.get() * 100 < total * compactionGarbagePercent) {
+                continue;
+            }
+            try {
+                compact(segment);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to compact image segment {}", segment.path.getFileName(), e);
+                return;
+            }
+        }
+    }
+
+    private void compact(Segment segment) throws IOException {
+        long start = System.currentTimeMillis();
+        // Tombstones in the oldest segment have nothing left to hide
+        boolean oldest = segments.firstKey() == segment.id;
+        long copiedBytes = 0;
+        Segment last = null;
+        long position = 0;
+        Segment.Header header;
+        while (position < segment.end() && (header = segment.readHeader(position)) != null) {
+            appendLock.lock();
+            try {
+                Location current = index.get(header.id());
+                byte[] id = header.id().getBytes(StandardCharsets.UTF_8);
+                if (header.type() == Segment.PUT) {
+                    if (current != null && current.segment() == segment && current.recordOffset() == position) {
+                        Location moved = append(Segment.header(Segment.PUT, id, header.timestamp(),
+                                header.dataLength(), header.dataCrc()),
+                                segment.slice(header.dataOffset(), header.dataLength()), header.timestamp());
+                        index.put(header.id(), moved);
+                        copiedBytes += moved.recordBytes();
+                        last = moved.segment();
+                    }
+                } else if (!oldest && current == null) {
+                    Location copied = append(Segment.header(Segment.TOMBSTONE, id, header.timestamp(), 0, 0),
+                            NO_DATA, header.timestamp());
+                    copied.segment().deadBytes.addAndGet(copied.recordBytes());
+                    last = copied.segment();
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            position += header.recordBytes();
+        }
+        if (last != null) {
+            last.syncTo(last.end());
+        }
+
+        segments.remove(segment.id);
+        segment.close();
+        Files.deleteIfExists(segment.path);
+        compactions.increment();
+        reclaimedBytes.increment(segment.totalBytes.get() - copiedBytes);
+        log.info("Compacted image segment {}: {} of {} bytes kept, {} ms", segment.path.getFileName(),
+                copiedBytes, segment.totalBytes.get(), System.currentTimeMillis() - start);
+    }
+
+    // ---- Recovery ----
+
+    private void recover() throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(directory);
+        List<Long> ids = segmentIds();
+        long records = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            long id = ids.get(i);
+            boolean latest = i == ids.size() - 1;
+            Segment segment = Segment.open(id, segmentPath(id));
+            segments.put(id, segment);
+            long position = 0;
+            Segment.Header header;
+            while ((header = segment.readHeader(position)) != null) {
+                // Only the latest segment can hold a torn write; the others were synced when sealed
+                if (latest && header.type() == Segment.PUT && !segment.dataIntact(header)) {
+                    break;
+                }
+                replay(segment, position, header);
+                position += header.recordBytes();
+                records++;
+            }
+            segment.recovered(position, latest, segmentBytes);
+        }
+
+        if (segments.isEmpty() || segments.lastEntry().getValue().isSealed()) {
+            long next = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+            segments.put(next, newSegment(next));
+        }
+        active = segments.lastEntry().getValue();
+        log.info("Recovered {} images from {} segments ({} records scanned) in {} ms",
+                index.size(), segments.size(), records, System.currentTimeMillis() - start);
+    }
+
+    private void replay(Segment segment, long position, Segment.Header header) {
+        Location previous;
+        if (header.type() == Segment.PUT) {
+            previous = index.put(header.id(), new Location(segment, position, header.recordBytes(),
+                    header.dataOffset(), header.dataLength(), header.timestamp()));
+        } else {
+            previous = index.remove(header.id());
+            segment.deadBytes.addAndGet(header.recordBytes());
+        }
+        if (previous != null) {
+            previous.segment().deadBytes.addAndGet(previous.recordBytes());
+        }
+    }
+
+    private List<Long> segmentIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("segment-%012d.dat", id));
+    }
+
+    private long sum(ToLongFunction<Segment> bytes) {
+        return segments.values().stream().mapToLong(bytes).sum();
+    }
+
+    private static String describe(Location location) {
+        return location.segment().path + "#" + location.recordOffset();
+    }
+}
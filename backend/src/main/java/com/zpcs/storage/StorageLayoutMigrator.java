@@ -0,0 +1,189 @@
+package com.zpcs.storage;
+
+import com.zpcs.config.StorageProperties;
+import com.zpcs.dto.response.StorageMigrationStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves images from the flat layout into shards while the service keeps
+ * serving; storage falls back to the flat path for anything not yet moved.
+ * Each image is hard-linked into its shard before the flat name is removed,
+ * so it is reachable under one of the two names at every instant and an
+ * image already present in the shard is never overwritten.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "file", matchIfMissing = true)
+@Slf4j
+public class StorageLayoutMigrator {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final LocalFileStorageService storage;
+    private final ImageRecordRepository repository;
+    private final StorageProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Run current;
+
+    public StorageLayoutMigrator(LocalFileStorageService storage, ImageRecordRepository repository,
+            StorageProperties properties) {
+        this.storage = storage;
+        this.repository = repository;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isMigrateOnStartup() && storage.hasFlatImages()) {
+            start();
+        }
+    }
+
+    /**
+     * Starts a migration unless one is in progress; returns the status of the active run.
+     */
+    public StorageMigrationStatus start() {
+        lock.lock();
+        try {
+            Run run = current;
+            if (run != null && run.state == StorageMigrationStatus.State.RUNNING) {
+                return run.toStatus();
+            }
+            Run started = new Run();
+            current = started;
+            if (properties.getLayout() != StorageProperties.Layout.SHARDED) {
+                started.finish(StorageMigrationStatus.State.FAILED, "storage.layout is not SHARDED");
+                return started.toStatus();
+            }
+            Thread.ofPlatform().name("storage-migrate").daemon(true).start(() -> execute(started));
+            return started.toStatus();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public StorageMigrationStatus status() {
+        Run run = current;
+        return run != null ? run.toStatus()
+                : StorageMigrationStatus.builder().state(StorageMigrationStatus.State.IDLE).build();
+    }
+
+    private void execute(Run run) {
+        log.info("Storage layout migration started");
+        ForkJoinPool pool = new ForkJoinPool(properties.getMigrationParallelism());
+        try (DirectoryStream<Path> flat = Files.newDirectoryStream(storage.root(),
+                "*" + LocalFileStorageService.EXTENSION)) {
+            List<Path> batch = new ArrayList<>(BATCH_SIZE);
+            for (Path file : flat) {
+                batch.add(file);
+                if (batch.size() == BATCH_SIZE) {
+                    migrateBatch(run, pool, batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            migrateBatch(run, pool, batch);
+            if (run.failed.get() == 0) {
+                storage.flatImagesMigrated();
+            }
+            run.finish(StorageMigrationStatus.State.COMPLETED, null);
+            log.info("Storage layout migration completed: {} moved, {} skipped, {} failed",
+                    run.moved.get(), run.skipped.get(), run.failed.get());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Storage layout migration failed", e);
+            run.finish(StorageMigrationStatus.State.FAILED, e.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void migrateBatch(Run run, ForkJoinPool pool, List<Path> batch) throws Exception {
+        if (!batch.isEmpty()) {
+            pool.submit(() -> batch.parallelStream().forEach(file -> migrate(run, file))).get();
+        }
+    }
+
+    private void migrate(Run run, Path file) {
+        String name = file.getFileName().toString();
+        String id = name.substring(0, name.length() - LocalFileStorageService.EXTENSION.length());
+        Path target = storage.pathFor(id);
+        try {
+            storage.ensureDirectory(target.getParent());
+            try {
+                Files.createLink(target, file);
+                Files.delete(file);
+                run.moved.incrementAndGet();
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(file);
+                run.skipped.incrementAndGet();
+                return;
+            } catch (UnsupportedOperationException e) {
+                if (Files.exists(target)) {
+                    Files.deleteIfExists(file);
+                    run.skipped.incrementAndGet();
+                    return;
+                }
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+                run.moved.incrementAndGet();
+            }
+        } catch (NoSuchFileException e) {
+            // Deleted while migrating
+            return;
+        } catch (IOException e) {
+            log.warn("Could not migrate image {}: {}", id, e.getMessage());
+            run.failed.incrementAndGet();
+            return;
+        }
+        repository.findById(id)
+                .filter(record -> file.toString().equals(record.getFilePath()))
+                .ifPresent(record -> repository.save(record.toBuilder().filePath(target.toString()).build()));
+    }
+
+    private static final class Run {
+        final Instant startedAt = Instant.now();
+        final AtomicLong moved = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        volatile StorageMigrationStatus.State state = StorageMigrationStatus.State.RUNNING;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        void finish(StorageMigrationStatus.State finalState, String message) {
+            error = message;
+            finishedAt = Instant.now();
+            state = finalState;
+        }
+
+        StorageMigrationStatus toStatus() {
+            return StorageMigrationStatus.builder()
+                    .state(state)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .moved(moved.get())
+                    .skipped(skipped.get())
+                    .failed(failed.get())
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -2,15 +2,60 @@ package com.zpcs.storage;
 
 import org.springframework.core.io.Resource;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.stream.Stream;
+
 /**
  * Interface Segregation: only CRUD operations, no business logic.
  */
 public interface StorageService {
     String save(byte[] data, String id);
 
+    /**
+     * Saves the remaining bytes of {@code data} without disturbing its position.
+     */
+    default String save(ByteBuffer data, String id) {
+        return save(id, channel -> {
+            ByteBuffer src = data.duplicate();
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+        });
+    }
+
+    /**
+     * Saves {@code data} whose {@link ContentHash#sha256} the caller already
+     * has. Content-addressed backends use it instead of digesting again.
+     */
+    default String save(ByteBuffer data, String id, String contentHash) {
+        return save(data, id);
+    }
+
+    /**
+     * Saves content streamed by {@code writer}. Backends that can write
+     * incrementally should override; this default buffers and delegates.
+     */
+    default String save(String id, ImageWriter writer) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            writer.writeTo(Channels.newChannel(buffer));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save image: " + id, e);
+        }
+        return save(buffer.toByteArray(), id);
+    }
+
     Resource load(String id);
 
     boolean delete(String id);
 
     boolean exists(String id);
+
+    /**
+     * Every stored image. The stream may be consumed in parallel and must be closed.
+     */
+    Stream<StoredImage> list();
 }
@@ -0,0 +1,9 @@
+package com.zpcs.storage;
+
+import java.time.Instant;
+
+/**
+ * An image as the storage backend sees it, independent of any record.
+ */
+public record StoredImage(String id, String location, long sizeBytes, Instant lastModified) {
+}
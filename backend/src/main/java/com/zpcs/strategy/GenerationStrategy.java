@@ -3,6 +3,7 @@ package com.zpcs.strategy;
 import com.zpcs.model.GenerationContext;
 import com.zpcs.model.GenerationResult;
 import com.zpcs.model.enums.OperationMode;
+import reactor.core.publisher.Mono;
 
 /**
  * Strategy interface for image generation — one implementation per
@@ -15,4 +16,6 @@ public interface GenerationStrategy {
     boolean supports(OperationMode mode);
 
     GenerationResult execute(GenerationContext context);
+
+    Mono<GenerationResult> executeReactive(GenerationContext context);
 }
@@ -1,11 +1,13 @@
 package com.zpcs.strategy;
 
 import com.zpcs.client.AiModelClient;
+import com.zpcs.client.ReactiveAiModelClient;
 import com.zpcs.model.*;
 import com.zpcs.model.enums.OperationMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
 @Component
 @RequiredArgsConstructor
@@ -13,6 +15,7 @@ import org.springframework.stereotype.Component;
 public class StyleTransferStrategy implements GenerationStrategy {
 
     private final AiModelClient aiModelClient;
+    private final ReactiveAiModelClient reactiveAiModelClient;
 
     @Override
     public boolean supports(OperationMode mode) {
@@ -22,15 +25,27 @@ public class StyleTransferStrategy implements GenerationStrategy {
     @Override
     public GenerationResult execute(GenerationContext ctx) {
         log.info("Executing STYLE_TRANSFER strategy for id={}", ctx.getId());
-        AiModelRequest aiRequest = AiModelRequest.builder()
+        AiModelResponse response = aiModelClient.generateImage(toAiRequest(ctx));
+        return toResult(response);
+    }
+
+    @Override
+    public Mono<GenerationResult> executeReactive(GenerationContext ctx) {
+        log.info("Executing STYLE_TRANSFER strategy (reactive) for id={}", ctx.getId());
+        return reactiveAiModelClient.generateImage(toAiRequest(ctx))
+                .map(StyleTransferStrategy::toResult);
+    }
+
+    private AiModelRequest toAiRequest(GenerationContext ctx) {
+        return AiModelRequest.builder()
                 .prompt(ctx.getPrompt())
                 .model(ctx.getAiConfig().getModel())
                 .sourceImage(ctx.getSourceImageBytes())
                 .intensity(ctx.getOriginalRequest().getStyleIntensity())
                 .build();
+    }
 
-        AiModelResponse response = aiModelClient.generateImage(aiRequest);
-
+    private static GenerationResult toResult(AiModelResponse response) {
         return GenerationResult.builder()
                 .imageData(response.getImageData())
                 .mimeType(response.getMimeType())
@@ -0,0 +1,104 @@
+package com.zpcs.batch;
+
+import com.zpcs.config.BatchProperties;
+import com.zpcs.dto.request.BatchGenerateRequest;
+import com.zpcs.dto.request.GenerateImageRequest;
+import com.zpcs.dto.response.GeneratedImageResponse;
+import com.zpcs.model.enums.AestheticStyle;
+import com.zpcs.model.enums.AspectRatio;
+import com.zpcs.model.enums.OperationMode;
+import com.zpcs.model.enums.ResolutionQuality;
+import com.zpcs.model.enums.ThinkingLevel;
+import com.zpcs.orchestrator.ImageGenerationOrchestrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchGenerationServiceTest {
+
+    private final ImageGenerationOrchestrator orchestrator = mock(ImageGenerationOrchestrator.class);
+    private final BatchProperties properties = new BatchProperties();
+    private ThreadPoolExecutor executor;
+    private BatchGenerationService service;
+
+    @BeforeEach
+    void setUp() {
+        properties.setMaxConcurrency(3);
+        properties.setDeadlineSeconds(60);
+        // One worker and no queue: every launch past the first is rejected
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void failsRejectedVariantsWithoutRunningThemOnTheCaller() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> generatedOn = new AtomicReference<>();
+        when(orchestrator.generate(any(GenerateImageRequest.class))).thenAnswer(invocation -> {
+            generatedOn.set(Thread.currentThread());
+            release.await(10, TimeUnit.SECONDS);
+            return GeneratedImageResponse.builder().build();
+        });
+        service = new BatchGenerationService(orchestrator, executor, properties);
+
+        assertNotNull(service.submit(batchOf(3)));
+        release.countDown();
+
+        verify(orchestrator, timeout(5_000)).generate(any(GenerateImageRequest.class));
+        assertNotEquals(Thread.currentThread(), generatedOn.get());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        // The two rejected variants were reported failed, not retried once a worker freed up
+        verify(orchestrator, times(1)).generate(any(GenerateImageRequest.class));
+    }
+
+    @Test
+    void saturatedExecutorFailsTheWholeBatchImmediately() {
+        service = new BatchGenerationService(orchestrator, task -> {
+            throw new RejectedExecutionException("saturated");
+        }, properties);
+
+        assertNotNull(service.submit(batchOf(3)));
+
+        verify(orchestrator, never()).generate(any(GenerateImageRequest.class));
+    }
+
+    private static BatchGenerateRequest batchOf(int styles) {
+        GenerateImageRequest base = GenerateImageRequest.builder()
+                .subject("a lighthouse")
+                .operationMode(OperationMode.values()[0])
+                .aspectRatio(AspectRatio.values()[0])
+                .resolution(ResolutionQuality.values()[0])
+                .thinkingLevel(ThinkingLevel.values()[0])
+                .build();
+        return BatchGenerateRequest.builder()
+                .base(base)
+                .aestheticStyles(Arrays.asList(AestheticStyle.values()).subList(0, styles))
+                .build();
+    }
+}
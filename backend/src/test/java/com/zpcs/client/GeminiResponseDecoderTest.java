@@ -0,0 +1,92 @@
+package com.zpcs.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GeminiResponseDecoderTest {
+
+    private static final byte[] IMAGE = new byte[200_000];
+
+    static {
+        new Random(7).nextBytes(IMAGE);
+    }
+
+    private static final String BASE64 = Base64.getEncoder().encodeToString(IMAGE);
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 3, 7, 4096, 1 << 20 })
+    void decodesImageSplitAnywhere(int chunkBytes) throws IOException {
+        String json = """
+                {"candidates": [{"content": {"role": "model", "parts": [
+                  {"text": "here you go, {\\"quoted\\"} [1, 2]"},
+                  {"inlineData": {"data": "%s", "mimeType": "image/jpeg"}}
+                ]}, "finishReason": "STOP", "index": 0}],
+                 "usageMetadata": {"promptTokenCount": 12, "thoughts": null, "ok": true}}
+                """.formatted(BASE64);
+        ByteArrayOutputStream image = new ByteArrayOutputStream();
+
+        String mimeType = decode(json, chunkBytes, image);
+
+        assertEquals("image/jpeg", mimeType);
+        assertArrayEquals(IMAGE, image.toByteArray());
+    }
+
+    @Test
+    void unescapesDataAndDefaultsMimeType() throws IOException {
+        byte[] image = { (byte) 0xff, (byte) 0xfe, (byte) 0xfd, 0x10, 0x20 };
+        String escaped = Base64.getEncoder().encodeToString(image).replace("/", "\\/").replace("+", "\\u002b");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        String mimeType = decode("{\"candidates\":[{\"content\":{\"parts\":[{\"inlineData\":{\"data\":\""
+                + escaped + "\"}}]}}]}", 2, out);
+
+        assertEquals("image/png", mimeType);
+        assertArrayEquals(image, out.toByteArray());
+    }
+
+    @Test
+    void readsOnlyTheFirstCandidate() {
+        String json = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"no image\"}]}},"
+                + "{\"content\":{\"parts\":[{\"inlineData\":{\"data\":\"AAAA\"}}]}}]}";
+
+        assertThrows(IllegalStateException.class, () -> decode(json, 5, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void ignoresDataOutsideInlineData() {
+        String json = "{\"data\":\"AAAA\",\"candidates\":[{\"content\":{\"parts\":[{\"data\":\"AAAA\"}]}}]}";
+
+        assertThrows(IllegalStateException.class, () -> decode(json, 5, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void rejectsMalformedResponses() {
+        assertThrows(IllegalStateException.class, () -> decode("[]", 1, new ByteArrayOutputStream()));
+        assertThrows(IllegalStateException.class, () -> decode("", 1, new ByteArrayOutputStream()));
+        assertThrows(IllegalStateException.class, () -> decode("{\"a\" 1}", 1, new ByteArrayOutputStream()));
+        assertThrows(IllegalStateException.class, () -> decode("{\"candidates\":[}", 1,
+                new ByteArrayOutputStream()));
+    }
+
+    private static String decode(String json, int chunkBytes, ByteArrayOutputStream sink) throws IOException {
+        GeminiResponseDecoder decoder = new GeminiResponseDecoder(Channels.newChannel(sink));
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        for (int offset = 0; offset < bytes.length; offset += chunkBytes) {
+            decoder.feed(ByteBuffer.wrap(bytes, offset, Math.min(chunkBytes, bytes.length - offset)));
+        }
+        return decoder.finish();
+    }
+}
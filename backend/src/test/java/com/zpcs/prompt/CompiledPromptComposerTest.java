@@ -0,0 +1,219 @@
+package com.zpcs.prompt;
+
+import com.zpcs.dto.request.GenerateImageRequest;
+import com.zpcs.dto.request.GenerateImageRequest.GenerateImageRequestBuilder;
+import com.zpcs.model.enums.*;
+import com.zpcs.prompt.handlers.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The compiled composer must produce the chain's prompt for every request.
+ * The default suite varies each option on its own and every pair of options
+ * together, unset values included. The full cross product runs only under
+ * {@code ./gradlew exhaustiveTest}.
+ */
+class CompiledPromptComposerTest {
+
+    private static final List<PromptFragmentHandler> HANDLERS = handlers(
+            new SubjectHandler(), new AestheticStyleHandler(), new LightingHandler(), new CameraHandler(),
+            new ColorPaletteHandler(), new LensEffectHandler(), new ResolutionHandler());
+
+    private static final List<Axis<?>> AXES = List.of(
+            new Axis<>("operationMode", OperationMode.values(), GenerateImageRequestBuilder::operationMode),
+            new Axis<>("aestheticStyle", AestheticStyle.values(), GenerateImageRequestBuilder::aestheticStyle),
+            new Axis<>("lighting", LightingSetup.values(), GenerateImageRequestBuilder::lighting),
+            new Axis<>("cameraComposition", CameraComposition.values(),
+                    GenerateImageRequestBuilder::cameraComposition),
+            new Axis<>("colorPalette", ColorPalette.values(), GenerateImageRequestBuilder::colorPalette),
+            new Axis<>("lensEffect", LensEffect.values(), GenerateImageRequestBuilder::lensEffect),
+            new Axis<>("aspectRatio", AspectRatio.values(), GenerateImageRequestBuilder::aspectRatio),
+            new Axis<>("resolution", ResolutionQuality.values(), GenerateImageRequestBuilder::resolution),
+            new Axis<>("thinkingLevel", ThinkingLevel.values(), GenerateImageRequestBuilder::thinkingLevel),
+            new Axis<>("styleIntensity", StyleIntensity.values(), GenerateImageRequestBuilder::styleIntensity));
+
+    private final ChainedPromptComposer chained = new ChainedPromptComposer(HANDLERS);
+    private final CompiledPromptComposer compiled = new CompiledPromptComposer(HANDLERS);
+
+    static Stream<Axis<?>> axes() {
+        return AXES.stream();
+    }
+
+    static Stream<Arguments> axisPairs() {
+        List<Arguments> pairs = new ArrayList<>();
+        for (int i = 0; i < AXES.size(); i++) {
+            for (int j = i + 1; j < AXES.size(); j++) {
+                pairs.add(Arguments.of(AXES.get(i), AXES.get(j)));
+            }
+        }
+        return pairs.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("axes")
+    void matchesChainForEachOptionAlone(Axis<?> axis) {
+        GenerateImageRequestBuilder allSet = GenerateImageRequest.builder().subject("a lighthouse at dusk");
+        for (Axis<?> other : AXES) {
+            allSet = other.set(allSet, 0);
+        }
+        // Against every other option unset, then against every other option set
+        for (GenerateImageRequest background : List.of(
+                GenerateImageRequest.builder().subject("a lighthouse at dusk").build(), allSet.build())) {
+            for (int value = 0; value < axis.size(); value++) {
+                assertComposesAlike(axis.set(background.toBuilder(), value).build());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("axisPairs")
+    void matchesChainForEveryPairOfOptions(Axis<?> first, Axis<?> second) {
+        for (int a = 0; a < first.size(); a++) {
+            for (int b = 0; b < second.size(); b++) {
+                GenerateImageRequestBuilder request = GenerateImageRequest.builder().subject("a lighthouse at dusk");
+                assertComposesAlike(second.set(first.set(request, a), b).build());
+            }
+        }
+    }
+
+    static Stream<Arguments> otherOptions() {
+        List<Arguments> arguments = new ArrayList<>();
+        for (OperationMode mode : withUnset(OperationMode.values())) {
+            for (AspectRatio ratio : withUnset(AspectRatio.values())) {
+                for (ThinkingLevel thinking : withUnset(ThinkingLevel.values())) {
+                    for (StyleIntensity intensity : withUnset(StyleIntensity.values())) {
+                        arguments.add(Arguments.of(mode, ratio, thinking, intensity));
+                    }
+                }
+            }
+        }
+        return arguments.stream();
+    }
+
+    @Tag("exhaustive")
+    @ParameterizedTest
+    @MethodSource("otherOptions")
+    void matchesChainForEveryCombinationOfOptions(OperationMode mode, AspectRatio ratio, ThinkingLevel thinking,
+            StyleIntensity intensity) {
+        GenerateImageRequest base = GenerateImageRequest.builder()
+                .subject("a lighthouse at dusk")
+                .operationMode(mode)
+                .aspectRatio(ratio)
+                .thinkingLevel(thinking)
+                .styleIntensity(intensity)
+                .build();
+        assertMatchesChain(base, chained, compiled);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "x", "a cat, sitting", "café ☕ at night", "  padded  " })
+    void matchesChainForAnySubject(String subject) {
+        assertMatchesChain(GenerateImageRequest.builder().subject(subject).build(), chained, compiled);
+    }
+
+    @Test
+    void matchesChainWithoutSubject() {
+        assertMatchesChain(GenerateImageRequest.builder().build(), chained, compiled);
+    }
+
+    @Test
+    void fallsBackToChainForHandlerReadingTwoOptions() {
+        PromptFragmentHandler mood = new PromptFragmentHandler() {
+            @Override
+            public int getOrder() {
+                return 7;
+            }
+
+            @Override
+            public void handle(GenerateImageRequest request, PromptBuilder builder) {
+                if (request.getLighting() != null && request.getColorPalette() != null) {
+                    builder.append(request.getLighting().getPromptFragment() + " in "
+                            + request.getColorPalette().getPromptFragment());
+                }
+            }
+        };
+        List<PromptFragmentHandler> handlers = new ArrayList<>(HANDLERS);
+        handlers.add(mood);
+        assertMatchesChain(GenerateImageRequest.builder().subject("a harbour").build(),
+                new ChainedPromptComposer(handlers), new CompiledPromptComposer(handlers));
+    }
+
+    private void assertComposesAlike(GenerateImageRequest request) {
+        assertEquals(chained.compose(request), compiled.compose(request), request::toString);
+    }
+
+    private static void assertMatchesChain(GenerateImageRequest base, PromptComposer expected,
+            PromptComposer actual) {
+        for (AestheticStyle style : withUnset(AestheticStyle.values())) {
+            for (LightingSetup lighting : withUnset(LightingSetup.values())) {
+                for (CameraComposition camera : withUnset(CameraComposition.values())) {
+                    for (ColorPalette palette : withUnset(ColorPalette.values())) {
+                        for (LensEffect lens : withUnset(LensEffect.values())) {
+                            for (ResolutionQuality resolution : withUnset(ResolutionQuality.values())) {
+                                GenerateImageRequest request = base.toBuilder()
+                                        .aestheticStyle(style)
+                                        .lighting(lighting)
+                                        .cameraComposition(camera)
+                                        .colorPalette(palette)
+                                        .lensEffect(lens)
+                                        .resolution(resolution)
+                                        .build();
+                                assertEquals(expected.compose(request), actual.compose(request),
+                                        request::toString);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** One prompt option: its values followed by unset, and how to set it on a request. */
+    private record Axis<E>(String name, List<E> values, Setter<E> setter) {
+
+        Axis(String name, E[] values, Setter<E> setter) {
+            this(name, withUnset(values), setter);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        GenerateImageRequestBuilder set(GenerateImageRequestBuilder builder, int value) {
+            return setter.set(builder, values.get(value));
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private interface Setter<E> {
+        GenerateImageRequestBuilder set(GenerateImageRequestBuilder builder, E value);
+    }
+
+    private static <E> List<E> withUnset(E[] values) {
+        List<E> all = new ArrayList<>(Arrays.asList(values));
+        all.add(null);
+        return all;
+    }
+
+    private static List<PromptFragmentHandler> handlers(PromptFragmentHandler... handlers) {
+        List<PromptFragmentHandler> sorted = new ArrayList<>(List.of(handlers));
+        AnnotationAwareOrderComparator.sort(sorted);
+        return List.copyOf(sorted);
+    }
+}
@@ -0,0 +1,220 @@
+package com.zpcs.storage;
+
+import com.zpcs.config.RecordStoreProperties;
+import com.zpcs.model.ImageRecord;
+import com.zpcs.model.enums.OperationMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournaledImageRecordRepositoryTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 3, 1, 12, 0, 0, 123_000_000);
+
+    @TempDir
+    Path directory;
+
+    private final List<JournaledImageRecordRepository> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() {
+        opened.forEach(JournaledImageRecordRepository::close);
+    }
+
+    @Test
+    void recordsSurviveRestart() {
+        JournaledImageRecordRepository repository = open(100_000);
+        repository.save(record("a"));
+        repository.save(record("b"));
+        repository.deleteById("a");
+        repository.save(record("b").toBuilder().prompt("replaced").build());
+        repository.close();
+
+        JournaledImageRecordRepository reopened = open(100_000);
+
+        assertTrue(reopened.findById("a").isEmpty());
+        assertEquals(record("b").toBuilder().prompt("replaced").build(), reopened.findById("b").orElseThrow());
+    }
+
+    @Test
+    void cutsOffTornTailOfLatestJournal() throws IOException {
+        JournaledImageRecordRepository repository = open(100_000);
+        repository.save(record("a"));
+        repository.save(record("b"));
+        repository.close();
+        Path journal = journal(1);
+        long intact = Files.size(journal);
+        // A frame whose header made it to disk but whose payload did not
+        Files.write(journal, new byte[] { 0, 0, 0, 64, 1, 2, 3, 4, 5, 6 }, StandardOpenOption.APPEND);
+
+        JournaledImageRecordRepository reopened = open(100_000);
+
+        assertEquals(intact, Files.size(journal));
+        assertTrue(reopened.findById("a").isPresent());
+        assertTrue(reopened.findById("b").isPresent());
+        reopened.save(record("c"));
+        reopened.close();
+        JournaledImageRecordRepository again = open(100_000);
+        assertTrue(again.findById("c").isPresent());
+    }
+
+    @Test
+    void replaysJournalsWrittenAfterSnapshot() {
+        JournaledImageRecordRepository repository = open(3);
+        for (int i = 0; i < 5; i++) {
+            repository.save(record("r" + i));
+        }
+        repository.deleteById("r1");
+        repository.save(record("r4").toBuilder().prompt("after the roll").build());
+        // Waits for the background snapshot to finish
+        repository.close();
+
+        assertTrue(Files.exists(directory.resolve("snapshot.bin")));
+        assertFalse(Files.exists(journal(1)));
+
+        JournaledImageRecordRepository reopened = open(3);
+
+        assertTrue(reopened.findById("r1").isEmpty());
+        for (String id : List.of("r0", "r2", "r3")) {
+            assertEquals(record(id), reopened.findById(id).orElseThrow());
+        }
+        assertEquals("after the roll", reopened.findById("r4").orElseThrow().getPrompt());
+    }
+
+    @Test
+    void corruptOlderJournalFailsStartup() throws IOException {
+        ByteBuffer good = frame(ImageRecordCodec.put(record("a")));
+        ByteBuffer corrupt = frame(ImageRecordCodec.put(record("b")));
+        corrupt.put(corrupt.limit() - 1, (byte) (corrupt.get(corrupt.limit() - 1) ^ 1));
+        Files.write(journal(1), concat(good, corrupt));
+        Files.write(journal(2), concat(frame(ImageRecordCodec.put(record("c")))));
+
+        assertThrows(UncheckedIOException.class, () -> open(100_000));
+    }
+
+    @Test
+    void decodesVersionOnePayloads() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ImageRecordCodec.PUT);
+            out.writeByte(1);
+            writeString(out, "old");
+            writeString(out, "/images/old.png");
+            writeString(out, "a prompt");
+            writeString(out, OperationMode.values()[0].name());
+            out.writeLong(1500);
+            out.writeBoolean(true);
+            out.writeLong(CREATED_AT.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(CREATED_AT.getNano());
+        }
+
+        ImageRecordCodec.Entry entry = ImageRecordCodec.decode(bytes.toByteArray());
+
+        ImageRecord decoded = entry.record();
+        assertEquals(ImageRecordCodec.PUT, entry.op());
+        assertEquals("old", decoded.getId());
+        assertEquals("/images/old.png", decoded.getFilePath());
+        assertEquals("a prompt", decoded.getPrompt());
+        assertEquals(OperationMode.values()[0], decoded.getOperationMode());
+        assertEquals(1500, decoded.getGenerationTimeMs());
+        assertEquals(CREATED_AT, decoded.getCreatedAt());
+        assertNull(decoded.getMimeType());
+        assertNull(decoded.getContentHash());
+        assertEquals(0, decoded.getSizeBytes());
+    }
+
+    @Test
+    void roundTripsCurrentPayloads() throws IOException {
+        ImageRecord sparse = ImageRecord.builder().id("sparse").build();
+
+        assertEquals(record("full"), ImageRecordCodec.decode(ImageRecordCodec.put(record("full"))).record());
+        assertEquals(sparse, ImageRecordCodec.decode(ImageRecordCodec.put(sparse)).record());
+        ImageRecordCodec.Entry delete = ImageRecordCodec.decode(ImageRecordCodec.delete("gone"));
+        assertEquals(ImageRecordCodec.DELETE, delete.op());
+        assertEquals("gone", delete.id());
+        assertNull(delete.record());
+    }
+
+    @Test
+    void rejectsWritesAfterClose() {
+        JournaledImageRecordRepository repository = open(100_000);
+        repository.save(record("a"));
+        repository.close();
+
+        assertThrows(IllegalStateException.class, () -> repository.save(record("b")));
+        assertThrows(IllegalStateException.class, () -> repository.deleteById("a"));
+        assertTrue(repository.findById("a").isPresent());
+    }
+
+    private JournaledImageRecordRepository open(int snapshotEveryEntries) {
+        RecordStoreProperties properties = new RecordStoreProperties();
+        properties.setType(RecordStoreProperties.Type.JOURNAL);
+        properties.setDirectory(directory.toString());
+        properties.setSnapshotEveryEntries(snapshotEveryEntries);
+        JournaledImageRecordRepository repository =
+                new JournaledImageRecordRepository(properties, new SimpleMeterRegistry());
+        opened.add(repository);
+        return repository;
+    }
+
+    private Path journal(long generation) {
+        return directory.resolve("journal-%012d.log".formatted(generation));
+    }
+
+    private static ImageRecord record(String id) {
+        return ImageRecord.builder()
+                .id(id)
+                .filePath("/images/" + id + ".png")
+                .prompt("prompt for " + id)
+                .operationMode(OperationMode.values()[0])
+                .generationTimeMs(1200)
+                .createdAt(CREATED_AT)
+                .mimeType("image/png")
+                .contentHash("ab".repeat(32))
+                .sizeBytes(4096)
+                .build();
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        return ByteBuffer.allocate(ImageRecordCodec.FRAME_HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt(ImageRecordCodec.checksum(payload))
+                .put(payload)
+                .flip();
+    }
+
+    private static byte[] concat(ByteBuffer... frames) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (ByteBuffer frame : frames) {
+            bytes.write(frame.array(), 0, frame.limit());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
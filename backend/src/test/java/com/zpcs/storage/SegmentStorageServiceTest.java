@@ -0,0 +1,171 @@
+package com.zpcs.storage;
+
+import com.zpcs.buffer.BufferPool;
+import com.zpcs.config.BufferPoolProperties;
+import com.zpcs.config.SegmentStoreProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentStorageServiceTest {
+
+    /** Small enough that two 600-byte images never share a segment. */
+    private static final int SEGMENT_BYTES = 1024;
+
+    /** Fixed header plus a one-character id. */
+    private static final int HEADER_BYTES = 28;
+
+    @TempDir
+    Path directory;
+
+    private final List<SegmentStorageService> opened = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+
+    @AfterEach
+    void closeAll() {
+        opened.forEach(SegmentStorageService::close);
+    }
+
+    @Test
+    void rebuildsIndexFromHeadersOnRestart() {
+        SegmentStorageService store = open();
+        store.save(image(600, 1), "x");
+        store.save(image(600, 2), "y");
+        store.save(image(300, 3), "x");
+        assertTrue(store.delete("y"));
+        store.save(image(100, 4), "z");
+        store.close();
+
+        SegmentStorageService reopened = open();
+
+        assertArrayEquals(image(300, 3), read(reopened, "x"));
+        assertFalse(reopened.exists("y"));
+        assertArrayEquals(image(100, 4), read(reopened, "z"));
+        assertEquals(2, reopened.list().count());
+    }
+
+    @Test
+    void cutsOffTornTailOfLatestSegment() throws IOException {
+        SegmentStorageService store = open();
+        store.save(image(200, 1), "a");
+        store.save(image(200, 2), "b");
+        store.close();
+        // b's header is intact but its data never fully reached the disk
+        long bData = (HEADER_BYTES + 200) + HEADER_BYTES;
+        try (FileChannel channel = FileChannel.open(segment(1), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0x55 }), bData + 10);
+        }
+
+        SegmentStorageService reopened = open();
+
+        assertArrayEquals(image(200, 1), read(reopened, "a"));
+        assertFalse(reopened.exists("b"));
+        reopened.save(image(200, 3), "c");
+        reopened.close();
+        SegmentStorageService again = open();
+        assertArrayEquals(image(200, 1), read(again, "a"));
+        assertFalse(again.exists("b"));
+        assertArrayEquals(image(200, 3), read(again, "c"));
+    }
+
+    @Test
+    void compactionCarriesTombstonesForward() {
+        SegmentStorageService store = open();
+        // Segment 1: x and z; deleting x later leaves it below the garbage threshold
+        store.save(image(300, 1), "x");
+        store.save(image(500, 2), "z");
+        // Segment 2: y, then the tombstone for x
+        store.save(image(600, 3), "y");
+        assertTrue(store.delete("x"));
+        // Segment 3: y again, which leaves segment 2 entirely dead
+        store.save(image(600, 4), "y");
+
+        store.compact();
+
+        assertFalse(Files.exists(segment(2)));
+        assertTrue(Files.exists(segment(1)));
+        // Segment 1 untouched, segment 3 holds y and the copied tombstone
+        assertEquals((HEADER_BYTES + 300) + (HEADER_BYTES + 500) + (HEADER_BYTES + 600) + HEADER_BYTES,
+                segmentBytesGauge());
+        store.close();
+
+        SegmentStorageService reopened = open();
+
+        assertFalse(reopened.exists("x"));
+        assertArrayEquals(image(500, 2), read(reopened, "z"));
+        assertArrayEquals(image(600, 4), read(reopened, "y"));
+    }
+
+    @Test
+    void compactionDropsTombstonesOnceNothingOlderRemains() {
+        SegmentStorageService store = open();
+        store.save(image(600, 1), "x");
+        store.save(image(600, 2), "y");
+        assertTrue(store.delete("x"));
+        store.save(image(600, 3), "y");
+
+        // Segment 1 holds only the deleted x; segment 2 becomes the oldest once it is gone
+        store.compact();
+
+        assertFalse(Files.exists(segment(1)));
+        assertFalse(Files.exists(segment(2)));
+        assertEquals(HEADER_BYTES + 600, segmentBytesGauge());
+        store.close();
+
+        SegmentStorageService reopened = open();
+
+        assertFalse(reopened.exists("x"));
+        assertArrayEquals(image(600, 3), read(reopened, "y"));
+        assertEquals(1, reopened.list().count());
+    }
+
+    private SegmentStorageService open() {
+        SegmentStoreProperties properties = new SegmentStoreProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentBytes(SEGMENT_BYTES);
+        // Compaction runs only when a test asks for it
+        properties.setCompactionIntervalSeconds(3600);
+        meterRegistry = new SimpleMeterRegistry();
+        SegmentStorageService store = new SegmentStorageService(properties,
+                new BufferPool(new BufferPoolProperties(), meterRegistry), meterRegistry);
+        opened.add(store);
+        return store;
+    }
+
+    private double segmentBytesGauge() {
+        return meterRegistry.get("zpcs.storage.segment.bytes").gauge().value();
+    }
+
+    private Path segment(long id) {
+        return directory.resolve(String.format("segment-%012d.dat", id));
+    }
+
+    private static byte[] read(SegmentStorageService store, String id) {
+        ByteBuffer content = ((ByteBufferResource) store.load(id)).byteBuffer();
+        byte[] bytes = new byte[content.remaining()];
+        content.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] image(int length, int fill) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) fill);
+        return bytes;
+    }
+}